@@ -16,6 +16,12 @@
 
 package com.aridstraea.aridcore.configuration;
 
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.gateway.MemoryProfile;
+import com.aridstraea.aridcore.utilities.constants.ConfigurationDefaults;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import com.aridstraea.aridcore.utilities.constants.ShutdownStatus;
+
 /**
  * BotConfiguration class of the AridCore project.
  * This class is intended for use with custom Discord Bots
@@ -44,4 +50,382 @@ public abstract class BotConfiguration extends Configuration {
   public abstract String getOwnerId();
 
   public abstract void setOwnerId(String newOwnerId);
+
+  /**
+   * Retrieves the value of a known setting, falling back to its default
+   * if the Configuration does not define it.
+   *
+   * @param setting setting to retrieve
+   * @return value of the setting
+   */
+  public String getValue(ConfigurationDefaults setting) {
+    String value = retrieveValue(setting.getKey());
+    if (value == null || value.isEmpty()
+        || value.equals("" + ShutdownStatus.NO_CONFIG.getIdentifier())) {
+      return setting.getValue();
+    }
+    return value;
+  }
+
+  /**
+   * Retrieves the {@link MemoryProfile} JDA's caches are built with.
+   *
+   * @return memory profile, {@link MemoryProfile#BALANCED} if unknown
+   */
+  public MemoryProfile getMemoryProfile() {
+    String value = getValue(ConfigurationDefaults.MEMORY_PROFILE);
+    MemoryProfile profile = MemoryProfile.fromName(value);
+    if (profile == null) {
+      AridCore.getLog().warning("Unknown memory profile '" + value + "'. Using "
+          + MemoryProfile.BALANCED.getName() + ".", OperationStage.CONFIGURATION);
+      return MemoryProfile.BALANCED;
+    }
+    return profile;
+  }
+
+  /**
+   * Retrieves the maximum number of members kept by the
+   * {@link com.aridstraea.aridcore.core.cache.MemberLoader}.
+   *
+   * @return maximum number of members
+   */
+  public int getMemberCacheSize() {
+    return getIntValue(ConfigurationDefaults.MEMBER_CACHE_SIZE);
+  }
+
+  /**
+   * Retrieves the seconds before a member kept by the
+   * {@link com.aridstraea.aridcore.core.cache.MemberLoader} is loaded again.
+   *
+   * @return expiry in seconds
+   */
+  public int getMemberCacheExpiry() {
+    return getIntValue(ConfigurationDefaults.MEMBER_CACHE_EXPIRY);
+  }
+
+  /**
+   * Retrieves the size of the pool handling events. 0 handles events on the gateway thread.
+   *
+   * @return size of the event pool
+   */
+  public int getEventPoolSize() {
+    return getIntValue(ConfigurationDefaults.EVENT_POOL_SIZE);
+  }
+
+  /**
+   * Retrieves the size of the pool running RestAction callbacks. 0 uses JDA's default.
+   *
+   * @return size of the callback pool
+   */
+  public int getCallbackPoolSize() {
+    return getIntValue(ConfigurationDefaults.CALLBACK_POOL_SIZE);
+  }
+
+  /**
+   * Retrieves the size of the rate-limit scheduler. 0 uses JDA's default.
+   *
+   * @return size of the rate-limit scheduler
+   */
+  public int getRateLimitPoolSize() {
+    return getIntValue(ConfigurationDefaults.RATE_LIMIT_POOL_SIZE);
+  }
+
+  /**
+   * Retrieves the size of the gateway pool. 0 uses JDA's default.
+   *
+   * @return size of the gateway pool
+   */
+  public int getGatewayPoolSize() {
+    return getIntValue(ConfigurationDefaults.GATEWAY_POOL_SIZE);
+  }
+
+  /**
+   * Retrieves if thread pools are shared across every shard.
+   *
+   * @return true if shared, false if each shard has its own
+   */
+  public boolean getSharedThreadPools() {
+    return getBooleanValue(ConfigurationDefaults.SHARED_THREAD_POOLS);
+  }
+
+  /**
+   * Retrieves if the event and callback pools use virtual threads, where supported.
+   *
+   * @return true if virtual threads are used, false if not
+   */
+  public boolean getVirtualThreads() {
+    return getBooleanValue(ConfigurationDefaults.VIRTUAL_THREADS);
+  }
+
+  /**
+   * Retrieves the time shutdown waits for in-flight work before forcing it, in milliseconds.
+   *
+   * @return shutdown deadline in milliseconds
+   */
+  public int getShutdownDeadline() {
+    return getIntValue(ConfigurationDefaults.SHUTDOWN_DEADLINE);
+  }
+
+  /**
+   * Retrieves the file registered slash command hashes are kept in; "none" disables it.
+   *
+   * @return name of the command hash file
+   */
+  public String getCommandHashFile() {
+    return getValue(ConfigurationDefaults.COMMAND_HASH_FILE);
+  }
+
+  /**
+   * Retrieves the number of guilds bulk command registration updates at the same time.
+   *
+   * @return command registration concurrency
+   */
+  public int getCommandRegistrationConcurrency() {
+    return getIntValue(ConfigurationDefaults.COMMAND_REGISTRATION_CONCURRENCY);
+  }
+
+  /**
+   * Retrieves how often bulk command registration tries a guild before reporting it as failed.
+   *
+   * @return command registration attempts per guild
+   */
+  public int getCommandRegistrationAttempts() {
+    return getIntValue(ConfigurationDefaults.COMMAND_REGISTRATION_ATTEMPTS);
+  }
+
+  /**
+   * Retrieves the number of commands each module runs at once; 0 runs them on the event thread.
+   *
+   * @return module concurrency
+   */
+  public int getModuleConcurrency() {
+    return getIntValue(ConfigurationDefaults.MODULE_CONCURRENCY);
+  }
+
+  /**
+   * Retrieves the number of commands each module queues before replying that it is busy.
+   *
+   * @return module queue size
+   */
+  public int getModuleQueueSize() {
+    return getIntValue(ConfigurationDefaults.MODULE_QUEUE_SIZE);
+  }
+
+  /**
+   * Retrieves the number of commands each admission lane holds; 0 disables admission control.
+   *
+   * @return admission queue size
+   */
+  public int getAdmissionQueueSize() {
+    return getIntValue(ConfigurationDefaults.ADMISSION_QUEUE_SIZE);
+  }
+
+  /**
+   * Retrieves how long a regular command may wait for admission before it is shed,
+   * in milliseconds.
+   *
+   * @return maximum admission delay in milliseconds
+   */
+  public int getAdmissionMaxDelay() {
+    return getIntValue(ConfigurationDefaults.ADMISSION_MAX_DELAY);
+  }
+
+  /**
+   * Retrieves how long a Slash Command may take before its reply is deferred, in milliseconds.
+   *
+   * @return interaction defer budget in milliseconds, 0 to never defer
+   */
+  public int getInteractionDeferBudget() {
+    return getIntValue(ConfigurationDefaults.INTERACTION_DEFER_BUDGET);
+  }
+
+  /**
+   * Retrieves how long commands without their own timeout may run, in milliseconds.
+   *
+   * @return command timeout in milliseconds, 0 for no limit
+   */
+  public int getCommandTimeout() {
+    return getIntValue(ConfigurationDefaults.COMMAND_TIMEOUT);
+  }
+
+  /**
+   * Retrieves how long handled message & interaction IDs are remembered, in milliseconds.
+   *
+   * @return deduplication window in milliseconds, 0 to disable deduplication
+   */
+  public int getEventDedupWindow() {
+    return getIntValue(ConfigurationDefaults.EVENT_DEDUP_WINDOW);
+  }
+
+  /**
+   * Retrieves how many IDs are remembered per deduplication window.
+   *
+   * @return deduplication capacity
+   */
+  public int getEventDedupCapacity() {
+    return getIntValue(ConfigurationDefaults.EVENT_DEDUP_CAPACITY);
+  }
+
+  /**
+   * Retrieves the file listing the entries of the content filter.
+   *
+   * @return filter file name
+   */
+  public String getFilterFile() {
+    return getValue(ConfigurationDefaults.FILTER_FILE);
+  }
+
+  /**
+   * Retrieves the comma-separated actions taken on filtered messages.
+   *
+   * @return filter actions, e.g. "delete,log"
+   */
+  public String getFilterActions() {
+    return getValue(ConfigurationDefaults.FILTER_ACTIONS);
+  }
+
+  /**
+   * Retrieves how often the content filter is checked for changes, in milliseconds.
+   *
+   * @return reload interval in milliseconds, 0 to load it once
+   */
+  public int getFilterReloadInterval() {
+    return getIntValue(ConfigurationDefaults.FILTER_RELOAD_INTERVAL);
+  }
+
+  /**
+   * Retrieves the window message rates are counted over, in milliseconds.
+   *
+   * @return spam window in milliseconds, 0 to disable spam detection
+   */
+  public int getSpamWindow() {
+    return getIntValue(ConfigurationDefaults.SPAM_WINDOW);
+  }
+
+  /**
+   * Retrieves how many users spam detection counts at once.
+   *
+   * @return spam detection capacity
+   */
+  public int getSpamCapacity() {
+    return getIntValue(ConfigurationDefaults.SPAM_CAPACITY);
+  }
+
+  /**
+   * Retrieves how many messages a user may send per spam window.
+   *
+   * @return user message limit, 0 for no limit
+   */
+  public int getSpamUserLimit() {
+    return getIntValue(ConfigurationDefaults.SPAM_USER_LIMIT);
+  }
+
+  /**
+   * Retrieves how many messages a channel may receive per spam window.
+   *
+   * @return channel message limit, 0 for no limit
+   */
+  public int getSpamChannelLimit() {
+    return getIntValue(ConfigurationDefaults.SPAM_CHANNEL_LIMIT);
+  }
+
+  /**
+   * Retrieves how often a user may send the same message per spam window.
+   *
+   * @return duplicate message limit, 0 for no limit
+   */
+  public int getSpamDuplicateLimit() {
+    return getIntValue(ConfigurationDefaults.SPAM_DUPLICATE_LIMIT);
+  }
+
+  /**
+   * Retrieves how long users flagged for spam are timed out, in milliseconds.
+   *
+   * @return mute duration in milliseconds, 0 to only flag
+   */
+  public int getSpamMuteDuration() {
+    return getIntValue(ConfigurationDefaults.SPAM_MUTE_DURATION);
+  }
+
+  /**
+   * Retrieves the file persistent scheduled tasks are journaled in.
+   *
+   * @return scheduler journal file name
+   */
+  public String getSchedulerJournal() {
+    return getValue(ConfigurationDefaults.SCHEDULER_JOURNAL);
+  }
+
+  /**
+   * Retrieves how long coalesced messages wait for others to the same channel,
+   * in milliseconds.
+   *
+   * @return coalescing window in milliseconds, 0 to send right away
+   */
+  public int getMessageCoalesceWindow() {
+    return getIntValue(ConfigurationDefaults.MESSAGE_COALESCE_WINDOW);
+  }
+
+  /**
+   * Retrieves how many normal priority requests are handed to the rate limiter at once.
+   *
+   * @return normal request concurrency
+   */
+  public int getRestNormalConcurrency() {
+    return getIntValue(ConfigurationDefaults.REST_NORMAL_CONCURRENCY);
+  }
+
+  /**
+   * Retrieves how many background requests are handed to the rate limiter at once.
+   *
+   * @return background request concurrency
+   */
+  public int getRestBackgroundConcurrency() {
+    return getIntValue(ConfigurationDefaults.REST_BACKGROUND_CONCURRENCY);
+  }
+
+  /**
+   * Retrieves how long background requests wait for normal ones at most, in milliseconds.
+   *
+   * @return maximum background wait in milliseconds
+   */
+  public int getRestBackgroundMaxWait() {
+    return getIntValue(ConfigurationDefaults.REST_BACKGROUND_MAX_WAIT);
+  }
+
+  /**
+   * Retrieves how long component state too large for a custom ID is kept, in milliseconds.
+   *
+   * @return component state TTL in milliseconds
+   */
+  public int getComponentStateTtl() {
+    return getIntValue(ConfigurationDefaults.COMPONENT_STATE_TTL);
+  }
+
+  /**
+   * Retrieves the value of a boolean setting.
+   *
+   * @param setting setting to retrieve
+   * @return value of the setting
+   */
+  protected boolean getBooleanValue(ConfigurationDefaults setting) {
+    return getValue(setting).toLowerCase().contains("true");
+  }
+
+  /**
+   * Retrieves the value of a numeric setting, falling back to its default if unparsable.
+   *
+   * @param setting setting to retrieve
+   * @return value of the setting
+   */
+  protected int getIntValue(ConfigurationDefaults setting) {
+    String value = getValue(setting);
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException nfe) {
+      AridCore.getLog().error("Could not parse " + setting.getKey() + " as an integer: " + value
+          + ". Using default.", OperationStage.CONFIGURATION, nfe);
+      return Integer.parseInt(setting.getValue());
+    }
+  }
 }
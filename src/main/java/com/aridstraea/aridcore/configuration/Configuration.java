@@ -99,6 +99,13 @@ public abstract class Configuration {
     return value;
   }
 
+  /**
+   * Writes any pending changes to the Configuration File.
+   * Called on shutdown; Configurations that write through immediately need not override this.
+   */
+  public void flush() {
+  }
+
   /**
    * Adds a JSON Array to the Configuration File.
    *
@@ -71,7 +71,7 @@ public class CoreConfiguration extends BotConfiguration {
           new NoConfigurationFileException(
               "Unusable configuration file. Please check the file at " + getFileName())
       );
-      AridCore.shutdown(ShutdownStatus.CONFIG_UNUSABLE);
+      AridCore.stopCurrent(ShutdownStatus.CONFIG_UNUSABLE);
     }
   }
 
@@ -143,7 +143,7 @@ public class CoreConfiguration extends BotConfiguration {
               OperationStage.CONFIGURATION);
       AridCore.getLog().error("No Token in Configuration File.", OperationStage.CONFIGURATION,
           new NoConfigurationFileException("Unusable configuration file. No Token provided."));
-      AridCore.shutdown(ShutdownStatus.NO_CONFIG);
+      AridCore.stopCurrent(ShutdownStatus.NO_CONFIG);
     }
     return value;
   }
@@ -0,0 +1,345 @@
+/*
+ *  Copyright 2024 aridstraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.configuration;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.utilities.FileUtilities;
+import com.aridstraea.aridcore.utilities.constants.ConfigurationDefaults;
+import com.aridstraea.aridcore.utilities.constants.ConfigurationSource;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import com.aridstraea.aridcore.utilities.constants.ShutdownStatus;
+import com.aridstraea.aridcore.utilities.exceptions.NoConfigurationFileException;
+import java.io.File;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import org.json.JSONObject;
+
+/**
+ * LayeredConfiguration class of the AridCore project.
+ * Resolves every {@link ConfigurationDefaults} key once at startup, in order of precedence:
+ * environment variables, system properties, the Configuration File, then the default value.
+ * The result is kept as an immutable snapshot, so getters never touch the disk.
+ *
+ * <p>Environment variables are named {@code ARIDCORE_<KEY>} (e.g. {@code ARIDCORE_TOKEN}) and
+ * system properties {@code aridcore.<key>} (e.g. {@code aridcore.token}). If every key is
+ * provided by the environment or system properties, the Configuration File is never read.
+ *
+ * @author aridstraea
+ * @since 0.2.6-S
+ */
+@SuppressWarnings("unused")
+public class LayeredConfiguration extends BotConfiguration {
+
+  public static final String ENVIRONMENT_PREFIX = "ARIDCORE_";
+  public static final String PROPERTY_PREFIX = "aridcore.";
+
+  /*
+   * File constants
+   */
+  private static final String fileName = "config.json";
+  private static final String arrayName = "bot";
+
+  private volatile Map<ConfigurationDefaults, String> snapshot;
+  private final Map<ConfigurationDefaults, ConfigurationSource> sources;
+  private final boolean fileBacked;
+
+  /**
+   * Creates a new LayeredConfiguration object.
+   */
+  public LayeredConfiguration() {
+    EnumMap<ConfigurationDefaults, String> values = new EnumMap<>(ConfigurationDefaults.class);
+    EnumMap<ConfigurationDefaults, ConfigurationSource> resolved =
+        new EnumMap<>(ConfigurationDefaults.class);
+
+    // Environment & system properties first. These never touch the disk.
+    for (ConfigurationDefaults setting : ConfigurationDefaults.values()) {
+      String value = System.getenv(getEnvironmentName(setting));
+      if (isPresent(value)) {
+        values.put(setting, value);
+        resolved.put(setting, ConfigurationSource.ENVIRONMENT);
+        continue;
+      }
+      value = System.getProperty(getPropertyName(setting));
+      if (isPresent(value)) {
+        values.put(setting, value);
+        resolved.put(setting, ConfigurationSource.SYSTEM_PROPERTY);
+      }
+    }
+
+    // Only read the Configuration File if something is still missing.
+    boolean fileExists = false;
+    if (values.size() < ConfigurationDefaults.values().length) {
+      File f = new File(getFileName());
+      fileExists = f.exists() && !f.isDirectory();
+      if (fileExists) {
+        JSONObject file = readFileSettings();
+        for (ConfigurationDefaults setting : ConfigurationDefaults.values()) {
+          if (values.containsKey(setting) || file == null) {
+            continue;
+          }
+          String value = file.optString(setting.getKey(), null);
+          if (isPresent(value)) {
+            values.put(setting, value);
+            resolved.put(setting, ConfigurationSource.FILE);
+          }
+        }
+      }
+    }
+
+    // Anything left uses its default.
+    for (ConfigurationDefaults setting : ConfigurationDefaults.values()) {
+      if (!values.containsKey(setting)) {
+        values.put(setting, setting.getValue());
+        resolved.put(setting, ConfigurationSource.DEFAULT);
+      }
+    }
+
+    snapshot = Collections.unmodifiableMap(values);
+    sources = Collections.unmodifiableMap(resolved);
+    fileBacked = fileExists;
+
+    for (ConfigurationDefaults setting : ConfigurationDefaults.values()) {
+      AridCore.getLog().debug(setting.getKey() + " resolved from "
+          + sources.get(setting).getName(), OperationStage.CONFIGURATION);
+    }
+
+    // Check if Configuration is usable.
+    if (!checkConfigurationUsability()) {
+      // First run without environment: generate the file to edit, as CoreConfiguration does.
+      if (!fileBacked) {
+        createConfigurationFile();
+      }
+      AridCore.getLog().error(
+          "Configuration is not usable.", OperationStage.CONFIGURATION,
+          new NoConfigurationFileException(
+              "Unusable configuration. Please provide a token through " + getEnvironmentName(
+                  ConfigurationDefaults.TOKEN) + ", " + getPropertyName(
+                  ConfigurationDefaults.TOKEN) + " or the file at " + getFileName())
+      );
+      AridCore.stopCurrent(ShutdownStatus.CONFIG_UNUSABLE);
+    }
+  }
+
+  @Override
+  protected void createConfigurationFile() {
+    JSONObject object = new JSONObject();
+
+    // Put default keys and values into the object.
+    for (ConfigurationDefaults setting : ConfigurationDefaults.values()) {
+      object.put(setting.getKey(), setting.getValue());
+    }
+
+    FileUtilities.createConfigurationFile(getFileName(), getArrayName(), object);
+  }
+
+  /**
+   * Checks usability of the Configuration.
+   *
+   * @return true if usable, false if not.
+   */
+  @Override
+  protected boolean checkConfigurationUsability() {
+    // The token is the only code-breaking setting.
+    return !getToken().contains(ConfigurationDefaults.TOKEN.getValue());
+  }
+
+  /**
+   * Retrieves a value from the snapshot.
+   *
+   * @param key key to the value to retrieve
+   * @return value of the key, or the {@link ShutdownStatus#NO_CONFIG} identifier if unknown
+   */
+  @Override
+  public String retrieveValue(String key) {
+    for (ConfigurationDefaults setting : ConfigurationDefaults.values()) {
+      if (setting.getKey().equals(key)) {
+        return snapshot.get(setting);
+      }
+    }
+    return "" + ShutdownStatus.NO_CONFIG.getIdentifier();
+  }
+
+  /**
+   * Sets a new value. The snapshot is replaced, and the value is written through to the
+   * Configuration File only if the Configuration was loaded from one.
+   *
+   * @param key   key to the value to set
+   * @param value new value
+   */
+  @Override
+  public void setValue(String key, String value) {
+    for (ConfigurationDefaults setting : ConfigurationDefaults.values()) {
+      if (setting.getKey().equals(key)) {
+        setValue(setting, value);
+        return;
+      }
+    }
+    AridCore.getLog().warning("Ignoring unknown configuration key: " + key,
+        OperationStage.CONFIGURATION);
+  }
+
+  @Override
+  public String getValue(ConfigurationDefaults setting) {
+    return snapshot.get(setting);
+  }
+
+  /**
+   * Retrieves where a setting was resolved from.
+   *
+   * @param setting setting to check
+   * @return source of the setting
+   */
+  public ConfigurationSource getSource(ConfigurationDefaults setting) {
+    return sources.get(setting);
+  }
+
+  /**
+   * Retrieves if the Configuration is backed by a Configuration File.
+   *
+   * @return true if a Configuration File was read at startup, false if not
+   */
+  public boolean isFileBacked() {
+    return fileBacked;
+  }
+
+  @Override
+  public String getPrefix() {
+    return getValue(ConfigurationDefaults.PREFIX);
+  }
+
+  @Override
+  public void setPrefix(String newPrefix) {
+    setValue(ConfigurationDefaults.PREFIX, newPrefix);
+  }
+
+  @Override
+  public String getToken() {
+    return getValue(ConfigurationDefaults.TOKEN);
+  }
+
+  @Override
+  public boolean getDebug() {
+    return getValue(ConfigurationDefaults.DEBUG).toLowerCase().contains("true");
+  }
+
+  @Override
+  public void setDebug(boolean newDebug) {
+    setValue(ConfigurationDefaults.DEBUG, "" + newDebug);
+  }
+
+  @Override
+  public int getShards() {
+    try {
+      return Integer.parseInt(getValue(ConfigurationDefaults.SHARDS).trim());
+    } catch (NumberFormatException nfe) {
+      AridCore.getLog()
+          .error("Could not parse Shard Count as an integer. Returning 0, regardless of default.",
+              OperationStage.CONFIGURATION, nfe);
+      return 0;
+    }
+  }
+
+  @Override
+  public String getOwnerId() {
+    String value = getValue(ConfigurationDefaults.OWNER_ID);
+    if (value.equals(ConfigurationDefaults.OWNER_ID.getValue())) {
+      return "0";
+    }
+    return value;
+  }
+
+  @Override
+  public void setOwnerId(String newOwnerId) {
+    setValue(ConfigurationDefaults.OWNER_ID, newOwnerId);
+  }
+
+  /**
+   * Retrieves file name of the Configuration.
+   *
+   * @return file name
+   */
+  @Override
+  public String getFileName() {
+    return fileName;
+  }
+
+  /**
+   * Retrieves array name of the Configuration.
+   *
+   * @return array name
+   */
+  @Override
+  public String getArrayName() {
+    return arrayName;
+  }
+
+  /**
+   * Retrieves the environment variable name of a setting.
+   *
+   * @param setting setting to name
+   * @return name of the environment variable
+   */
+  public static String getEnvironmentName(ConfigurationDefaults setting) {
+    return ENVIRONMENT_PREFIX + setting.getKey().toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Retrieves the system property name of a setting.
+   *
+   * @param setting setting to name
+   * @return name of the system property
+   */
+  public static String getPropertyName(ConfigurationDefaults setting) {
+    return PROPERTY_PREFIX + setting.getKey().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Replaces the snapshot with one containing the new value.
+   *
+   * @param setting setting to change
+   * @param value   new value
+   */
+  private synchronized void setValue(ConfigurationDefaults setting, String value) {
+    EnumMap<ConfigurationDefaults, String> values = new EnumMap<>(snapshot);
+    values.put(setting, value);
+    snapshot = Collections.unmodifiableMap(values);
+
+    if (fileBacked) {
+      JSONObject object = FileUtilities.getJsonFileObject(getFileName());
+      if (object != null && object.optJSONObject(getArrayName()) != null) {
+        object.getJSONObject(getArrayName()).put(setting.getKey(), value);
+        writeToFile(object);
+      }
+    }
+  }
+
+  /**
+   * Reads the settings object of the Configuration File once.
+   *
+   * @return settings object, or null if the file has none
+   */
+  private JSONObject readFileSettings() {
+    JSONObject object = FileUtilities.getJsonFileObject(getFileName());
+    return object == null ? null : object.optJSONObject(getArrayName());
+  }
+
+  private static boolean isPresent(String value) {
+    return value != null && !value.isEmpty();
+  }
+}
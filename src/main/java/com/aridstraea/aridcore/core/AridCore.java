@@ -18,16 +18,50 @@ package com.aridstraea.aridcore.core;
 
 import com.aridstraea.aridcore.configuration.BotConfiguration;
 import com.aridstraea.aridcore.configuration.Configuration;
-import com.aridstraea.aridcore.configuration.CoreConfiguration;
+import com.aridstraea.aridcore.configuration.LayeredConfiguration;
+import com.aridstraea.aridcore.core.cache.MemberLoader;
+import com.aridstraea.aridcore.core.commands.BulkCommandRegistrar;
 import com.aridstraea.aridcore.core.commands.Command;
+import com.aridstraea.aridcore.core.commands.CommandDispatcher;
+import com.aridstraea.aridcore.core.commands.CommandTimeouts;
+import com.aridstraea.aridcore.core.commands.ExecutionTracker;
 import com.aridstraea.aridcore.core.commands.HelpCommand;
+import com.aridstraea.aridcore.core.commands.InteractionDeadlines;
+import com.aridstraea.aridcore.core.commands.PermissionManager;
+import com.aridstraea.aridcore.core.commands.SlashCommandSynchronizer;
+import com.aridstraea.aridcore.core.events.EventDeduplicator;
+import com.aridstraea.aridcore.core.events.IndexedEventManager;
+import com.aridstraea.aridcore.core.gateway.IntentResolver;
+import com.aridstraea.aridcore.core.gateway.MemoryProfile;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.core.moderation.ContentFilter;
+import com.aridstraea.aridcore.core.moderation.SpamDetector;
+import com.aridstraea.aridcore.core.threads.AdmissionController;
+import com.aridstraea.aridcore.core.threads.ModuleBulkheads;
+import com.aridstraea.aridcore.core.threads.PriorityRateLimiter;
+import com.aridstraea.aridcore.core.threads.TaskScheduler;
+import com.aridstraea.aridcore.core.threads.ThreadPoolManager;
+import com.aridstraea.aridcore.core.listeners.ComponentRouter;
+import com.aridstraea.aridcore.core.listeners.MentionRouter;
 import com.aridstraea.aridcore.core.listeners.TagListener;
 import com.aridstraea.aridcore.utilities.InternalLogger;
+import com.aridstraea.aridcore.utilities.MessageCoalescer;
+import com.aridstraea.aridcore.utilities.constants.ConfigurationDefaults;
 import com.aridstraea.aridcore.utilities.constants.OperationStage;
 import com.aridstraea.aridcore.utilities.constants.ShutdownStatus;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.JDAInfo;
@@ -36,11 +70,18 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.SequentialRestRateLimiter;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 
 /**
  * AridCore class of the AridCore project The very Core of the framework.
  * Contains all commands for instantiating the Bot.
  *
+ * <p>Every AridCore instance is its own Bot, so several Bots can run in one JVM and share
+ * {@link SharedResources}. The static getters resolve to the {@link #current()} instance:
+ * the one dispatching the event being handled on this thread, or the only one created.
+ *
  * @author aristraea
  * @version 0.2.0-S
  * @since 0.1.0-S
@@ -48,38 +89,80 @@ import net.dv8tion.jda.api.requests.GatewayIntent;
 @SuppressWarnings("unused")
 public class AridCore {
 
+  // instances
+  private static final ThreadLocal<AridCore> current = new ThreadLocal<>();
+  private static final List<AridCore> instances = new CopyOnWriteArrayList<>();
+
   // jda specific
-  private static JDA api;
-  private static JDABuilder builder;
+  private JDA api;
+  private JDABuilder builder;
+  private final List<JDA> shards = new CopyOnWriteArrayList<>();
+  private final SharedResources sharedResources;
 
   // core specific
-  private static InternalLogger log;
-  private static BotConfiguration config;
-  private static final HelpCommand help = new HelpCommand();
-  private static long time = 0;
+  private InternalLogger log = new InternalLogger();
+  private BotConfiguration config;
+  private final HelpCommand help = new HelpCommand();
+  private MemberLoader memberLoader;
+  private final IndexedEventManager eventManager = new IndexedEventManager(this);
+  private final CoreMetrics metrics = new CoreMetrics();
+  private ThreadPoolManager threadPools;
+  private final ExecutionTracker executionTracker = new ExecutionTracker();
+  private final PermissionManager permissions = new PermissionManager();
+  private final CommandDispatcher dispatcher = new CommandDispatcher();
+  private final ModuleBulkheads bulkheads = new ModuleBulkheads(this, metrics);
+  private final AdmissionController admission = new AdmissionController(this, metrics, bulkheads);
+  private final InteractionDeadlines interactionDeadlines =
+      new InteractionDeadlines(this, metrics);
+  private final CommandTimeouts commandTimeouts = new CommandTimeouts(this, metrics);
+  private final EventDeduplicator deduplicator = new EventDeduplicator(metrics);
+  private final TagListener tagListener = new TagListener();
+  private final ComponentRouter componentRouter = new ComponentRouter(metrics);
+  private final ContentFilter contentFilter = new ContentFilter(this, metrics);
+  private final SpamDetector spamDetector = new SpamDetector(metrics);
+  private final TaskScheduler scheduler = new TaskScheduler(this, metrics);
+  private final MessageCoalescer messageCoalescer = new MessageCoalescer(this, metrics);
+  private SlashCommandSynchronizer commandSynchronizer;
+  private long time = 0;
+  private final IntentResolver intentResolver = new IntentResolver();
+  private final List<Object> pendingListeners = new ArrayList<>();
+  private final AtomicBoolean stopped = new AtomicBoolean();
 
-  private static final ArrayList<Command> availableCommands = new ArrayList<>() {
+  private final ArrayList<Command> availableCommands = new ArrayList<>() {
     {
       // Add mandatory Core commands
 
       // GENERIC
-      add(getHelp());
+      add(help);
     }
   };
-  private static final ArrayList<Command> availableGuildSlashCommands = new ArrayList<>() {
+  private final ArrayList<Command> availableGuildSlashCommands = new ArrayList<>() {
     {
       // Add mandatory Core Slash commands
     }
   };
 
-  private static final ArrayList<Command> availableGlobalSlashCommands = new ArrayList<>() {
+  private final ArrayList<Command> availableGlobalSlashCommands = new ArrayList<>() {
     {
       // Add mandatory Core Slash commands
     }
   };
 
   public AridCore() {
+    this(new SharedResources());
+  }
+
+  /**
+   * Creates a new Bot using resources shared with other Bots in this JVM.
+   *
+   * @param sharedResources Resources to share
+   */
+  public AridCore(SharedResources sharedResources) {
+    this.sharedResources = sharedResources;
     time = System.currentTimeMillis();
+    instances.add(this);
+    componentRouter.register(HelpCommand.PAGE_COMPONENT, help);
+    registerEventListener(contentFilter, dispatcher, componentRouter);
   }
 
   // ----- Accessible Bot Methods -----
@@ -91,7 +174,7 @@ public class AridCore {
    */
   @SuppressWarnings("UnusedReturnValue")
   public AridCore disableInternalLogging() {
-    getLog().setLogging(false);
+    log.setLogging(false);
     return this;
   }
 
@@ -105,19 +188,26 @@ public class AridCore {
   public AridCore enableInternalLogging(String loggerName) {
     log = new InternalLogger(loggerName);
 
-    getLog().setLogging(true);
+    log.setLogging(true);
     return this;
   }
 
   /**
    * Enables the use of the {@link Configuration} internally.
    * Do not enable this if you need to add your own values.
+   * Values are resolved from the environment, system properties, then the Configuration File.
    *
    * @return AridCore instance
+   * @see LayeredConfiguration
    */
   @SuppressWarnings("UnusedReturnValue")
   public AridCore enableInternalConfig() {
-    config = new CoreConfiguration();
+    AridCore previous = makeCurrent();
+    try {
+      config = new LayeredConfiguration();
+    } finally {
+      restoreCurrent(previous);
+    }
     return this;
   }
 
@@ -134,22 +224,60 @@ public class AridCore {
   }
 
   /**
-   * Registers an event listener.
+   * Registers an event listener. Listeners registered before {@link #startup()} are
+   * taken into account when deriving the {@link GatewayIntent}s of the Bot.
    *
    * @param listener Event listener to register
    * @return AridCore instance
    */
   @SuppressWarnings("UnusedReturnValue")
   public AridCore registerEventListener(Object... listener) {
+    if (api == null) {
+      pendingListeners.addAll(List.of(listener));
+      return this;
+    }
+    for (Object l : listener) {
+      if (!intentResolver.covers(l.getClass())) {
+        log.warning(l.getClass().getSimpleName()
+            + " was registered after startup and handles events outside of the enabled intents."
+            + " Register it before startup, or use requireIntents().", OperationStage.INIT);
+      }
+    }
     try {
       api.addEventListener(listener);
     } catch (Exception e) {
       log.error("Unable to register Event Listeners.", OperationStage.COMMAND_CALL, e);
-      shutdown(ShutdownStatus.NO_EVENT);
+      stop(ShutdownStatus.NO_EVENT);
     }
     return this;
   }
 
+  /**
+   * Requires intents in addition to those derived from registered listeners and commands.
+   * Must be called before {@link #startup()}.
+   *
+   * @param intents Intents to enable
+   * @return AridCore instance
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  public AridCore requireIntents(GatewayIntent... intents) {
+    intentResolver.require(intents);
+    return this;
+  }
+
+  /**
+   * Requires cache flags in addition to those derived from registered listeners and commands.
+   * Must be called before {@link #startup()}.
+   *
+   * @param cacheFlags Cache flags to enable
+   * @return AridCore instance
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  public AridCore requireCacheFlags(CacheFlag... cacheFlags) {
+    intentResolver.require(cacheFlags);
+    return this;
+  }
+
   /**
    * Adds a list of (non-slash) commands.
    *
@@ -231,7 +359,7 @@ public class AridCore {
   public AridCore registerCommands(String guildId) {
     // Register all non-slash commands
     for (Command command : availableCommands) {
-      registerEventListener(getHelp().registerCommand(command));
+      dispatcher.register(help.registerCommand(command));
     }
 
     Guild guild = api.getGuildById(guildId);
@@ -241,11 +369,12 @@ public class AridCore {
       ArrayList<CommandData> guildOnlyCommands = new ArrayList<>();
       for (Command command : availableGuildSlashCommands) {
         guildOnlyCommands.add(command.getSlashCommandData());
-        registerEventListener(getHelp().registerCommand(command));
+        dispatcher.register(help.registerCommand(command));
       }
-      guild.updateCommands().addCommands(guildOnlyCommands).queue();
+      getCommandSynchronizer().synchronize(guild, guildOnlyCommands)
+          .whenComplete(this::reportCommandSynchronization);
     } else {
-      getLog().error("Cannot update guild-only commands.", OperationStage.INIT,
+      log.error("Cannot update guild-only commands.", OperationStage.INIT,
           new NullPointerException("Guild is null."));
     }
 
@@ -253,13 +382,79 @@ public class AridCore {
     ArrayList<CommandData> globalCommands = new ArrayList<>();
     for (Command command : availableGlobalSlashCommands) {
       globalCommands.add(command.getSlashCommandData());
-      registerEventListener(getHelp().registerCommand(command));
+      dispatcher.register(help.registerCommand(command));
     }
-    getApi().updateCommands().addCommands(globalCommands).queue();
+    getCommandSynchronizer().synchronize(api, globalCommands)
+        .whenComplete(this::reportCommandSynchronization);
 
     return this;
   }
 
+  /**
+   * Registers guild-only slash commands for many guilds at once.
+   * Guilds are updated concurrently within the rate limits, unchanged guilds are skipped
+   * and failed guilds are reported rather than aborting the rest.
+   *
+   * @param guildCommands guild ID to the commands that guild should have
+   * @param listener      notified after every guild, may be null
+   * @return future completing with the report once every guild is done
+   */
+  public CompletableFuture<BulkCommandRegistrar.Report> registerGuildCommands(
+      Map<String, ? extends Collection<Command>> guildCommands,
+      BulkCommandRegistrar.ProgressListener listener) {
+    Map<String, List<CommandData>> commandData = new HashMap<>();
+    Set<Command> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Map.Entry<String, ? extends Collection<Command>> entry : guildCommands.entrySet()) {
+      List<CommandData> data = new ArrayList<>();
+      for (Command command : entry.getValue()) {
+        data.add(command.getSlashCommandData());
+        distinct.add(command);
+      }
+      commandData.put(entry.getKey(), data);
+    }
+    for (Command command : distinct) {
+      dispatcher.register(help.registerCommand(command));
+    }
+
+    BulkCommandRegistrar registrar = new BulkCommandRegistrar(this, getCommandSynchronizer(),
+        this::getGuildById, metrics, config.getCommandRegistrationConcurrency(),
+        config.getCommandRegistrationAttempts());
+    return registrar.register(commandData, listener).whenComplete((report, throwable) -> {
+      if (report != null) {
+        log.info("Bulk slash command registration done (" + report + ").",
+            OperationStage.INIT);
+      }
+    });
+  }
+
+  private Guild getGuildById(String guildId) {
+    for (JDA shard : shards) {
+      Guild guild = shard.getGuildById(guildId);
+      if (guild != null) {
+        return guild;
+      }
+    }
+    return null;
+  }
+
+  private synchronized SlashCommandSynchronizer getCommandSynchronizer() {
+    if (commandSynchronizer == null) {
+      commandSynchronizer = new SlashCommandSynchronizer(config != null
+          ? config.getCommandHashFile() : ConfigurationDefaults.COMMAND_HASH_FILE.getValue());
+    }
+    return commandSynchronizer;
+  }
+
+  private void reportCommandSynchronization(SlashCommandSynchronizer.Result result,
+      Throwable throwable) {
+    if (throwable != null) {
+      log.error("Failed to synchronize slash commands.", OperationStage.INIT,
+          throwable instanceof Exception ? (Exception) throwable : new Exception(throwable));
+    } else {
+      log.info("Slash commands synchronized (" + result + ").", OperationStage.INIT);
+    }
+  }
+
   /**
    * Starts the Bot.
    *
@@ -267,14 +462,70 @@ public class AridCore {
    */
   @SuppressWarnings("UnusedReturnValue")
   public AridCore startup() {
-    getLog().welcome();
-    debugOnlyInitialization();
-    preInitialization();
-    initialization();
-    postInitialization();
+    AridCore previous = makeCurrent();
+    try {
+      // A Bot stopped by a failure, e.g. an unusable configuration, is not started.
+      if (stopped.get()) {
+        log.warning("This Bot was stopped and cannot be started.", OperationStage.PRE_INIT);
+        return this;
+      }
+      log.welcome();
+      debugOnlyInitialization();
+      preInitialization();
+      initialization();
+      if (!stopped.get()) {
+        postInitialization();
+      }
+    } finally {
+      restoreCurrent(previous);
+    }
     return this;
   }
 
+  /**
+   * Makes this the {@link #current()} instance on the calling thread.
+   *
+   * @return the previously current instance on this thread, to pass to {@link #restoreCurrent}
+   */
+  public AridCore makeCurrent() {
+    AridCore previous = current.get();
+    current.set(this);
+    return previous;
+  }
+
+  /**
+   * Restores the {@link #current()} instance replaced by {@link #makeCurrent()}.
+   *
+   * @param previous instance returned by {@link #makeCurrent()}
+   */
+  public static void restoreCurrent(AridCore previous) {
+    if (previous == null) {
+      current.remove();
+    } else {
+      current.set(previous);
+    }
+  }
+
+  /**
+   * Wraps a task so this is the {@link #current()} instance while it runs,
+   * e.g. for callbacks running on a pool shared by several Bots. Once several Bots exist,
+   * code on threads no Bot owns, including RestAction callbacks on JDA's default callback
+   * pool, must be bound to use the static getters.
+   *
+   * @param task Task to wrap
+   * @return wrapped task
+   */
+  public Runnable bind(Runnable task) {
+    return () -> {
+      AridCore previous = makeCurrent();
+      try {
+        task.run();
+      } finally {
+        restoreCurrent(previous);
+      }
+    };
+  }
+
   // ----- Internal Methods -----
 
   /**
@@ -282,11 +533,11 @@ public class AridCore {
    */
   private void debugOnlyInitialization() {
     if (config.getDebug()) {
-      getLog().debug("Welcome to EchoedCore! \n \n", OperationStage.PRE_INIT);
-      getLog().debug("Prefix: " + config.getPrefix(), OperationStage.PRE_INIT);
-      getLog().debug("Game Status: " + "config.getGameStatus()", OperationStage.PRE_INIT);
-      getLog().debug("Debug Status: " + "true", OperationStage.PRE_INIT);
-      getLog().debug("Token: " + config.getToken(), OperationStage.PRE_INIT);
+      log.debug("Welcome to EchoedCore! \n \n", OperationStage.PRE_INIT);
+      log.debug("Prefix: " + config.getPrefix(), OperationStage.PRE_INIT);
+      log.debug("Game Status: " + "config.getGameStatus()", OperationStage.PRE_INIT);
+      log.debug("Debug Status: " + "true", OperationStage.PRE_INIT);
+      log.debug("Token: " + config.getToken(), OperationStage.PRE_INIT);
     }
   }
 
@@ -294,13 +545,60 @@ public class AridCore {
    * Initialize the Bot instance and define startup time.
    */
   private void preInitialization() {
-    getLog().debug("Beginning Pre-Initialization.", OperationStage.PRE_INIT);
+    log.debug("Beginning Pre-Initialization.", OperationStage.PRE_INIT);
 
     time = System.currentTimeMillis();
+    permissions.setOwnerId(config.getOwnerId());
+
+    // Derive intents & cache flags from everything that will listen.
+    intentResolver.inspect(TagListener.class);
+    for (Command command : getAllCommands()) {
+      intentResolver.inspect(command);
+    }
+    for (Object listener : pendingListeners) {
+      intentResolver.inspect(listener);
+    }
+    MemoryProfile profile = config.getMemoryProfile();
+    EnumSet<GatewayIntent> intents = intentResolver.getIntents();
+    intents.addAll(profile.getAdditionalIntents());
+    EnumSet<CacheFlag> cacheFlags = profile.getCacheFlags(intentResolver.getCacheFlags(), intents);
+    log.debug("Memory Profile: " + profile.getName(), OperationStage.PRE_INIT);
+    log.debug("Gateway Intents: " + intents, OperationStage.PRE_INIT);
+    log.debug("Cache Flags: " + cacheFlags, OperationStage.PRE_INIT);
 
-    builder = JDABuilder.createDefault(config.getToken())
-        .enableIntents(GatewayIntent.MESSAGE_CONTENT)
+    builder = JDABuilder.createLight(config.getToken(), intents)
+        .enableCache(cacheFlags)
+        .setMemberCachePolicy(profile.getMemberCachePolicy(cacheFlags))
+        .setChunkingFilter(profile.getChunkingFilter())
+        .setEventManager(eventManager)
         .setAutoReconnect(true);
+    if (sharedResources.getHttpClient() != null) {
+      builder.setHttpClient(sharedResources.getHttpClient());
+    }
+    if (sharedResources.getSessionController() != null) {
+      builder.setSessionController(sharedResources.getSessionController());
+    }
+    int normalRequests = config.getRestNormalConcurrency();
+    int backgroundRequests = config.getRestBackgroundConcurrency();
+    int backgroundWait = config.getRestBackgroundMaxWait();
+    builder.setRestConfig(new RestConfig().setRateLimiterFactory(rateLimitConfig ->
+        new PriorityRateLimiter(new SequentialRestRateLimiter(rateLimitConfig), rateLimitConfig,
+            metrics, normalRequests, backgroundRequests, backgroundWait)));
+    memberLoader = new MemberLoader(config.getMemberCacheSize(), config.getMemberCacheExpiry());
+    threadPools = new ThreadPoolManager(this, config, metrics, sharedResources);
+    bulkheads.setDefaults(config.getModuleConcurrency(), config.getModuleQueueSize(),
+        config.getVirtualThreads());
+    admission.start(config.getAdmissionQueueSize(), config.getAdmissionMaxDelay());
+    interactionDeadlines.setDefaultBudget(config.getInteractionDeferBudget());
+    commandTimeouts.setDefaultTimeout(config.getCommandTimeout());
+    deduplicator.configure(config.getEventDedupWindow(), config.getEventDedupCapacity());
+    contentFilter.start(config);
+    spamDetector.configure(config.getSpamWindow(), config.getSpamCapacity(),
+        config.getSpamUserLimit(), config.getSpamChannelLimit(), config.getSpamDuplicateLimit(),
+        config.getSpamMuteDuration());
+    scheduler.start(config.getSchedulerJournal());
+    messageCoalescer.setWindow(config.getMessageCoalesceWindow());
+    componentRouter.setStateTtl(config.getComponentStateTtl());
     //.setActivity(Activity.watching("time pass by"));
   }
 
@@ -308,31 +606,34 @@ public class AridCore {
    * Initialize the JDA instance.
    */
   private void initialization() {
-    getLog().debug("Beginning initialization.", OperationStage.INIT);
+    log.debug("Beginning initialization.", OperationStage.INIT);
     // Define the JDA Instance.
     try {
-      getLog().debug("Defining JDA instance.", OperationStage.INIT);
+      log.debug("Defining JDA instance.", OperationStage.INIT);
+      builder.addEventListeners(pendingListeners.toArray());
 
-      if (getConfig().getShards() > 0) {
-        // Adding event listeners.
-        registerEventListeners();
+      if (config.getShards() > 0) {
         // Sharding.
-        for (int i = 0; i < getConfig().getShards(); i++) {
-          api = builder.useSharding(i, config.getShards())
+        for (int i = 0; i < config.getShards(); i++) {
+          api = threadPools.apply(builder, i).useSharding(i, config.getShards())
               .build();
+          shards.add(api);
           api.awaitReady();
         }
+        // Adding event listeners. Every shard shares the event manager.
+        registerEventListeners();
       } else {
-        api = builder.build();
+        api = threadPools.apply(builder, 0).build();
+        shards.add(api);
         registerEventListeners();
         api.awaitReady();
       }
     } catch (InterruptedException ie) {
-      getLog().error("Interrupted upon waiting JDA Instance.", OperationStage.INIT, ie);
-      shutdown(ShutdownStatus.NO_JDA);
+      log.error("Interrupted upon waiting JDA Instance.", OperationStage.INIT, ie);
+      stop(ShutdownStatus.NO_JDA);
     } catch (ErrorResponseException ere) {
-      getLog().error("Unable to connect.", OperationStage.INIT, ere);
-      shutdown(ShutdownStatus.UNABLE_TO_CONNECT);
+      log.error("Unable to connect.", OperationStage.INIT, ere);
+      stop(ShutdownStatus.UNABLE_TO_CONNECT);
     }
 
   }
@@ -341,13 +642,13 @@ public class AridCore {
    * Post-initialization.
    */
   private void postInitialization() {
-    getLog().debug("Beginning post-initialization.", OperationStage.POST_INIT);
+    log.debug("Beginning post-initialization.", OperationStage.POST_INIT);
 
     // Set the Bot's ID.
     try {
-      getLog().debug("Bot ID: " + getId(), OperationStage.POST_INIT);
+      log.debug("Bot ID: " + api.getSelfUser().getId(), OperationStage.POST_INIT);
     } catch (Exception e) {
-      getLog().error(
+      log.error(
           "Error retrieving Bot ID. This is not a vital step, but may cause issues later.",
           OperationStage.POST_INIT, e);
     }
@@ -361,18 +662,68 @@ public class AridCore {
    * Adds default event listeners.
    */
   private void registerEventListeners() {
-    registerEventListener(new TagListener());
+    registerEventListener(tagListener);
+  }
+
+  /**
+   * Retrieves every added command, traditional and slash.
+   *
+   * @return list of all added commands
+   */
+  private List<Command> getAllCommands() {
+    List<Command> commands = new ArrayList<>(availableCommands);
+    commands.addAll(availableGuildSlashCommands);
+    commands.addAll(availableGlobalSlashCommands);
+    return commands;
   }
 
   // ----- Getter Methods -----
 
+  /**
+   * Retrieve the current AridCore instance: the one dispatching the event handled on this
+   * thread, or made current with {@link #makeCurrent()}, or otherwise the only one created.
+   *
+   *
+   * <p>Once several Bots exist, threads no Bot owns cannot use the static getters: the main
+   * thread, threads and executors of your own, and JDA's default callback pool, which is used
+   * for RestAction callbacks when <code>callback_pool_size</code> is 0. Run such code through
+   * {@link #bind(Runnable)} or {@link #makeCurrent()}.
+   *
+   * @return The current AridCore instance, or null if none was created
+   * @throws IllegalStateException if several Bots run and none is current on this thread
+   */
+  public static AridCore current() {
+    AridCore core = current.get();
+    if (core != null) {
+      return core;
+    }
+    switch (instances.size()) {
+      case 0:
+        return null;
+      case 1:
+        return instances.get(0);
+      default:
+        throw new IllegalStateException("Several Bots run in this JVM and none is current on "
+            + Thread.currentThread().getName() + ". Use makeCurrent() or bind().");
+    }
+  }
+
+  /**
+   * Retrieve every AridCore instance in this JVM.
+   *
+   * @return every AridCore instance, in order of creation
+   */
+  public static List<AridCore> getInstances() {
+    return Collections.unmodifiableList(instances);
+  }
+
   /**
    * Retrieve the {@link Configuration} instance.
    *
    * @return The {@link Configuration} instance used by the bot
    */
   public static BotConfiguration getConfig() {
-    return config;
+    return current().config;
   }
 
   /**
@@ -381,7 +732,7 @@ public class AridCore {
    * @return The {@link InternalLogger} instance used by the bot
    */
   public static InternalLogger getLog() {
-    return log;
+    return current().log;
   }
 
   /**
@@ -390,7 +741,169 @@ public class AridCore {
    * @return The {@link HelpCommand} instance used by the bot
    */
   public static HelpCommand getHelp() {
-    return help;
+    return current().help;
+  }
+
+  /**
+   * Retrieve the {@link IndexedEventManager} instance.
+   *
+   * @return The {@link IndexedEventManager} dispatching events to listeners
+   */
+  public static IndexedEventManager getEventManager() {
+    return current().eventManager;
+  }
+
+  /**
+   * Retrieve the {@link ExecutionTracker} instance.
+   *
+   * @return The {@link ExecutionTracker} counting command executions in flight
+   */
+  public static ExecutionTracker getExecutionTracker() {
+    return current().executionTracker;
+  }
+
+  /**
+   * Retrieve the {@link CommandDispatcher} instance.
+   *
+   * @return The {@link CommandDispatcher} routing commands, used to enable & disable modules
+   */
+  public static CommandDispatcher getCommandDispatcher() {
+    return current().dispatcher;
+  }
+
+  /**
+   * Retrieve the {@link AdmissionController} instance.
+   *
+   * @return The {@link AdmissionController} queueing commands before they run
+   */
+  public static AdmissionController getAdmission() {
+    return current().admission;
+  }
+
+  /**
+   * Retrieve the {@link CommandTimeouts} instance.
+   *
+   * @return The {@link CommandTimeouts} cancelling commands that run too long
+   */
+  public static CommandTimeouts getCommandTimeouts() {
+    return current().commandTimeouts;
+  }
+
+  /**
+   * Retrieve the {@link ComponentRouter} instance.
+   *
+   * @return The {@link ComponentRouter}, to register button & select menu handlers with
+   */
+  public static ComponentRouter getComponentRouter() {
+    return current().componentRouter;
+  }
+
+  /**
+   * Retrieve the {@link ContentFilter} instance.
+   *
+   * @return The {@link ContentFilter} scanning messages for blocked content
+   */
+  public static ContentFilter getContentFilter() {
+    return current().contentFilter;
+  }
+
+  /**
+   * Retrieve the {@link EventDeduplicator} instance.
+   *
+   * @return The {@link EventDeduplicator} dropping replayed events
+   */
+  public static EventDeduplicator getDeduplicator() {
+    return current().deduplicator;
+  }
+
+  /**
+   * Retrieve the {@link InteractionDeadlines} instance.
+   *
+   * @return The {@link InteractionDeadlines} deferring slow Slash Commands
+   */
+  public static InteractionDeadlines getInteractionDeadlines() {
+    return current().interactionDeadlines;
+  }
+
+  /**
+   * Retrieve the {@link MentionRouter} answering mentions of the Bot.
+   *
+   * @return The {@link MentionRouter}, to register keywords with
+   */
+  public static MentionRouter getMentionRouter() {
+    return current().tagListener;
+  }
+
+  /**
+   * Retrieve the {@link MessageCoalescer} instance.
+   *
+   * @return The {@link MessageCoalescer} merging messages to the same channel
+   */
+  public static MessageCoalescer getMessageCoalescer() {
+    return current().messageCoalescer;
+  }
+
+  /**
+   * Retrieve the {@link ModuleBulkheads} instance.
+   *
+   * @return The {@link ModuleBulkheads} running each module's commands
+   */
+  public static ModuleBulkheads getBulkheads() {
+    return current().bulkheads;
+  }
+
+  /**
+   * Retrieve the {@link PermissionManager} instance.
+   *
+   * @return The {@link PermissionManager} deciding who may use commands
+   */
+  public static PermissionManager getPermissions() {
+    return current().permissions;
+  }
+
+  /**
+   * Retrieve the {@link TaskScheduler} instance.
+   *
+   * @return The {@link TaskScheduler} running delayed tasks
+   */
+  public static TaskScheduler getScheduler() {
+    return current().scheduler;
+  }
+
+  /**
+   * Retrieve the {@link SpamDetector} instance.
+   *
+   * @return The {@link SpamDetector} dropping spam before command dispatch
+   */
+  public static SpamDetector getSpamDetector() {
+    return current().spamDetector;
+  }
+
+  /**
+   * Retrieve the {@link CoreMetrics} instance.
+   *
+   * @return The {@link CoreMetrics} kept by the core
+   */
+  public static CoreMetrics getMetrics() {
+    return current().metrics;
+  }
+
+  /**
+   * Retrieve every shard of the Bot.
+   *
+   * @return The {@link JDA} instance of every shard
+   */
+  public static List<JDA> getShards() {
+    return Collections.unmodifiableList(current().shards);
+  }
+
+  /**
+   * Retrieve the {@link MemberLoader} instance.
+   *
+   * @return The {@link MemberLoader} used to load members on demand
+   */
+  public static MemberLoader getMemberLoader() {
+    return current().memberLoader;
   }
 
   /**
@@ -408,7 +921,7 @@ public class AridCore {
    * @return The {@link JDA} instance used by the bot
    */
   public static JDA getApi() {
-    return api;
+    return current().api;
   }
 
   private static void checkDependencies() {
@@ -417,41 +930,161 @@ public class AridCore {
   }
 
   /**
-   * Shutdown the Bot Instance and exit the program.
+   * Shutdown every Bot Instance and exit the program.
    *
    * @param status Status of the shutdown
+   * @see #stop(ShutdownStatus)
    */
   public static void shutdown(ShutdownStatus status) {
+    // Stop the current Bot first, so its reason is logged before the others stop.
+    AridCore core = current.get();
+    if (core != null) {
+      core.stop(status);
+    }
+    for (AridCore instance : instances) {
+      instance.stop(status);
+    }
+    System.exit(status.getIdentifier());
+  }
+
+  /**
+   * Stops the {@link #current()} Bot Instance after a failure of its own, such as an unusable
+   * configuration. Exits the program only if no Bot was created yet.
+   *
+   * @param status Status of the shutdown
+   */
+  public static void stopCurrent(ShutdownStatus status) {
+    AridCore core = current();
+    if (core == null) {
+      shutdown(status);
+    } else {
+      core.stop(status);
+    }
+  }
+
+  /**
+   * Stops this Bot Instance without exiting the program.
+   * New commands are refused, in-flight commands are drained and shards are closed
+   * gracefully, all within the configured shutdown deadline.
+   *
+   * @param status Status of the shutdown
+   */
+  public void stop(ShutdownStatus status) {
+    if (!stopped.compareAndSet(false, true)) {
+      return;
+    }
+    AridCore previous = makeCurrent();
+    try {
+      drain(status);
+    } finally {
+      restoreCurrent(previous);
+      instances.remove(this);
+    }
+  }
+
+  /**
+   * Runs every shutdown phase of this Bot Instance.
+   *
+   * @param status Status of the shutdown
+   */
+  private void drain(ShutdownStatus status) {
     long endTime = System.currentTimeMillis();
     long timeActive = endTime - time;
 
-    getLog().info("Active for " + ((timeActive / 1000) / 60) + " minutes. (" + (timeActive / 1000)
+    log.info("Active for " + ((timeActive / 1000) / 60) + " minutes. (" + (timeActive / 1000)
         + " seconds)", OperationStage.SHUTDOWN);
-    getLog().info("Beginning shutdown.", OperationStage.SHUTDOWN);
+    log.info("Beginning shutdown.", OperationStage.SHUTDOWN);
 
-    // Remove event listeners. The Bot can shut down before these are defined.
-    try {
-      api.removeEventListener(api.getRegisteredListeners());
-    } catch (NullPointerException npe) {
-      getLog().debug("No Event Listeners to remove.", OperationStage.SHUTDOWN);
-    }
+    // The configuration can be unusable before it is registered.
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config == null
+        ? Long.parseLong(ConfigurationDefaults.SHUTDOWN_DEADLINE.getValue())
+        : config.getShutdownDeadline());
+    long phase = System.nanoTime();
+
+    // 1. Stop accepting new commands.
+    executionTracker.stopAccepting();
+    admission.shutdown();
+    phase = reportShutdownPhase("Stopped accepting commands", phase);
 
+    // 2. Wait for in-flight commands.
     try {
-      TimeUnit.SECONDS.sleep(1);
+      if (!executionTracker.awaitIdle(remaining(deadline), TimeUnit.NANOSECONDS)) {
+        log.warning(executionTracker.getInFlight()
+            + " command(s) still running at the shutdown deadline.", OperationStage.SHUTDOWN);
+      }
     } catch (InterruptedException ie) {
-      getLog().debug("Ignored InterruptedException on shut down.", OperationStage.SHUTDOWN);
+      log.debug("Interrupted while draining commands.", OperationStage.SHUTDOWN);
+      Thread.currentThread().interrupt();
     }
+    // Queued commands are refused by the tracker, so this only waits for running ones.
+    bulkheads.shutdown(remaining(deadline), TimeUnit.NANOSECONDS);
+    interactionDeadlines.shutdown();
+    commandTimeouts.shutdown();
+    contentFilter.shutdown();
+    scheduler.shutdown();
+    messageCoalescer.shutdown();
+    phase = reportShutdownPhase("Drained in-flight commands", phase);
 
+    // 3. Flush configuration & metrics.
+    if (config != null) {
+      config.flush();
+    }
+    metrics.log(log, OperationStage.SHUTDOWN);
+    phase = reportShutdownPhase("Flushed configuration and metrics", phase);
+
+    // 4. Close shards in parallel. JDA still sends RestActions queued before this.
     if (status != ShutdownStatus.NO_JDA && status != ShutdownStatus.CONFIG_UNUSABLE
         && status != ShutdownStatus.UNABLE_TO_CONNECT) {
-      api.shutdownNow();
+      for (JDA shard : shards) {
+        shard.shutdown();
+      }
+      for (JDA shard : shards) {
+        try {
+          if (!shard.awaitShutdown(remaining(deadline), TimeUnit.NANOSECONDS)) {
+            log.warning("Shard did not close before the shutdown deadline. Forcing.",
+                OperationStage.SHUTDOWN);
+            shard.shutdownNow();
+          }
+        } catch (InterruptedException ie) {
+          shard.shutdownNow();
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+    if (threadPools != null) {
+      threadPools.shutdown(remaining(deadline), TimeUnit.NANOSECONDS);
     }
+    reportShutdownPhase("Closed shards", phase);
+
     if (status.getIdentifier() != 0) {
-      getLog().warning(
+      log.warning(
           "This shutdown was caused by an error. Please review the reason for shutdown:\n"
               + status.getReason(), OperationStage.SHUTDOWN);
     }
-    System.exit(status.getIdentifier());
+  }
+
+  /**
+   * Logs the time taken by a shutdown phase.
+   *
+   * @param name  name of the phase
+   * @param start start of the phase, from {@link System#nanoTime()}
+   * @return end of the phase, from {@link System#nanoTime()}
+   */
+  private long reportShutdownPhase(String name, long start) {
+    long end = System.nanoTime();
+    log.info(name + " in " + TimeUnit.NANOSECONDS.toMillis(end - start) + " ms.",
+        OperationStage.SHUTDOWN);
+    return end;
+  }
+
+  /**
+   * Retrieves the time left until a deadline.
+   *
+   * @param deadline deadline, from {@link System#nanoTime()}
+   * @return nanoseconds left, never negative
+   */
+  private static long remaining(long deadline) {
+    return Math.max(0, deadline - System.nanoTime());
   }
 
 }
\ No newline at end of file
@@ -70,17 +70,17 @@ public class MainExample {
     // externalLogger.setTitle("New Bot Title");
 
     /* LOGGING */
-    AridCore core = new AridCore();
-    //core.enableInternalConfig();
-    core.enableInternalLogging("AridCore");
-
+    // The static getters resolve to the Bot owning the thread. The main thread is owned by
+    // none, so bind code running on it, which is required once several Bots exist.
     System.out.println("Hi");
-    AridCore.getLog().debug("This is a test debug message.", OperationStage.PRE_INIT);
-    AridCore.getLog().info("This is a test info message.", OperationStage.INIT);
-    AridCore.getLog().warning("This is a test warning message.", OperationStage.POST_INIT);
-    AridCore.getLog().info("This is a test info message.", OperationStage.SHUTDOWN);
-    AridCore.getLog().info("This is a test info message.", OperationStage.COMMAND_CALL);
-    AridCore.getLog().info("This is a test info message.", OperationStage.FILE_UTIL);
-    AridCore.getLog().info(AridCoreInfo.VERSION, OperationStage.INIT);
+    main.bind(() -> {
+      AridCore.getLog().debug("This is a test debug message.", OperationStage.PRE_INIT);
+      AridCore.getLog().info("This is a test info message.", OperationStage.INIT);
+      AridCore.getLog().warning("This is a test warning message.", OperationStage.POST_INIT);
+      AridCore.getLog().info("This is a test info message.", OperationStage.SHUTDOWN);
+      AridCore.getLog().info("This is a test info message.", OperationStage.COMMAND_CALL);
+      AridCore.getLog().info("This is a test info message.", OperationStage.FILE_UTIL);
+      AridCore.getLog().info(AridCoreInfo.VERSION, OperationStage.INIT);
+    }).run();
   }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.api.utils.SessionController;
+import okhttp3.OkHttpClient;
+
+/**
+ * SharedResources class of the AridCore project.
+ * Resources shared by several {@link AridCore} instances running in one JVM, so each Bot
+ * does not pay for its own HTTP client, thread pools and session controller.
+ *
+ * <p>Any resource left unset is created per Bot as usual. Shared resources are never shut down
+ * by a Bot; call {@link #shutdown(long, TimeUnit)} once every Bot using them has stopped.
+ * Sharing a {@link SessionController} serializes the logins of every Bot using it.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+@SuppressWarnings("unused")
+public class SharedResources {
+
+  private OkHttpClient httpClient;
+  private SessionController sessionController;
+  private ExecutorService eventPool;
+  private ExecutorService callbackPool;
+  private ScheduledExecutorService rateLimitScheduler;
+  private ScheduledExecutorService gatewayPool;
+
+  /**
+   * Shares one OkHttp client, including its connection and thread pools.
+   *
+   * @return SharedResources instance
+   */
+  public SharedResources shareHttpClient() {
+    return setHttpClient(new OkHttpClient());
+  }
+
+  /**
+   * Shares a given OkHttp client.
+   *
+   * @param httpClient client to share
+   * @return SharedResources instance
+   */
+  public SharedResources setHttpClient(OkHttpClient httpClient) {
+    this.httpClient = httpClient;
+    return this;
+  }
+
+  /**
+   * Shares one session controller, coordinating the logins of every Bot.
+   *
+   * @return SharedResources instance
+   */
+  public SharedResources shareSessionController() {
+    return setSessionController(new ConcurrentSessionController());
+  }
+
+  /**
+   * Shares a given session controller.
+   *
+   * @param sessionController session controller to share
+   * @return SharedResources instance
+   */
+  public SharedResources setSessionController(SessionController sessionController) {
+    this.sessionController = sessionController;
+    return this;
+  }
+
+  /**
+   * Shares a pool handling the events of every Bot.
+   *
+   * @param eventPool pool to share
+   * @return SharedResources instance
+   */
+  public SharedResources setEventPool(ExecutorService eventPool) {
+    this.eventPool = eventPool;
+    return this;
+  }
+
+  /**
+   * Shares a pool running the RestAction callbacks of every Bot.
+   *
+   * @param callbackPool pool to share
+   * @return SharedResources instance
+   */
+  public SharedResources setCallbackPool(ExecutorService callbackPool) {
+    this.callbackPool = callbackPool;
+    return this;
+  }
+
+  /**
+   * Shares a rate-limit scheduler between every Bot.
+   *
+   * @param rateLimitScheduler scheduler to share
+   * @return SharedResources instance
+   */
+  public SharedResources setRateLimitScheduler(ScheduledExecutorService rateLimitScheduler) {
+    this.rateLimitScheduler = rateLimitScheduler;
+    return this;
+  }
+
+  /**
+   * Shares a gateway pool between every Bot.
+   *
+   * @param gatewayPool pool to share
+   * @return SharedResources instance
+   */
+  public SharedResources setGatewayPool(ScheduledExecutorService gatewayPool) {
+    this.gatewayPool = gatewayPool;
+    return this;
+  }
+
+  public OkHttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  public SessionController getSessionController() {
+    return sessionController;
+  }
+
+  public ExecutorService getEventPool() {
+    return eventPool;
+  }
+
+  public ExecutorService getCallbackPool() {
+    return callbackPool;
+  }
+
+  public ScheduledExecutorService getRateLimitScheduler() {
+    return rateLimitScheduler;
+  }
+
+  public ScheduledExecutorService getGatewayPool() {
+    return gatewayPool;
+  }
+
+  /**
+   * Shuts down every shared pool and the HTTP client, waiting for running tasks up to a deadline.
+   *
+   * @param timeout maximum time to wait
+   * @param unit    unit of the timeout
+   * @return true if every pool terminated, false if not
+   */
+  public boolean shutdown(long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    List<ExecutorService> pools = new ArrayList<>();
+    for (ExecutorService pool : new ExecutorService[] {eventPool, callbackPool,
+        rateLimitScheduler, gatewayPool}) {
+      if (pool != null) {
+        pool.shutdown();
+        pools.add(pool);
+      }
+    }
+
+    boolean terminated = true;
+    for (ExecutorService pool : pools) {
+      try {
+        if (!pool.awaitTermination(Math.max(0, deadline - System.nanoTime()),
+            TimeUnit.NANOSECONDS)) {
+          pool.shutdownNow();
+          terminated = false;
+        }
+      } catch (InterruptedException ie) {
+        pool.shutdownNow();
+        Thread.currentThread().interrupt();
+        terminated = false;
+      }
+    }
+
+    if (httpClient != null) {
+      httpClient.dispatcher().executorService().shutdown();
+      httpClient.connectionPool().evictAll();
+    }
+    return terminated;
+  }
+}
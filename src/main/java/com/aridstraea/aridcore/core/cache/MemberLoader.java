@@ -0,0 +1,196 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+
+/**
+ * MemberLoader class of the AridCore project.
+ * Loads members on demand instead of caching every member of every guild.
+ * Loaded members are kept in a bounded LRU and expire after a fixed time,
+ * so roles and nicknames do not go stale indefinitely.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class MemberLoader {
+
+  private final int maximumSize;
+  private final long expiryNanos;
+  private final LinkedHashMap<Key, Entry> members;
+  private final Map<Key, CompletableFuture<Member>> loading = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new MemberLoader.
+   *
+   * @param maximumSize   maximum number of members kept
+   * @param expirySeconds seconds before a kept member is loaded again
+   */
+  public MemberLoader(int maximumSize, long expirySeconds) {
+    this.maximumSize = Math.max(1, maximumSize);
+    this.expiryNanos = TimeUnit.SECONDS.toNanos(expirySeconds);
+    this.members = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > MemberLoader.this.maximumSize;
+      }
+    };
+  }
+
+  /**
+   * Loads a member. Kept members are returned immediately, then members in JDA's cache,
+   * and otherwise the member is retrieved from Discord. Concurrent loads of the same
+   * member share one request.
+   *
+   * @param guild  guild of the member
+   * @param userId ID of the user
+   * @return future completing with the member
+   */
+  public CompletableFuture<Member> load(Guild guild, long userId) {
+    Key key = new Key(guild.getIdLong(), userId);
+    Member member = getIfPresent(key);
+    if (member != null) {
+      return CompletableFuture.completedFuture(member);
+    }
+
+    member = guild.getMemberById(userId);
+    if (member != null) {
+      put(key, member);
+      return CompletableFuture.completedFuture(member);
+    }
+
+    CompletableFuture<Member> future = new CompletableFuture<>();
+    CompletableFuture<Member> existing = loading.putIfAbsent(key, future);
+    if (existing != null) {
+      return existing;
+    }
+    guild.retrieveMemberById(userId).submit().whenComplete((m, t) -> {
+      loading.remove(key, future);
+      if (t != null) {
+        future.completeExceptionally(t);
+      } else {
+        put(key, m);
+        future.complete(m);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Retrieves a kept member without loading it.
+   *
+   * @param guildId ID of the guild
+   * @param userId  ID of the user
+   * @return the member, or null if not kept
+   */
+  public Member getIfPresent(long guildId, long userId) {
+    return getIfPresent(new Key(guildId, userId));
+  }
+
+  /**
+   * Removes a kept member.
+   *
+   * @param guildId ID of the guild
+   * @param userId  ID of the user
+   */
+  public synchronized void invalidate(long guildId, long userId) {
+    members.remove(new Key(guildId, userId));
+  }
+
+  /**
+   * Removes every kept member of a guild.
+   *
+   * @param guildId ID of the guild
+   */
+  public synchronized void invalidateGuild(long guildId) {
+    members.keySet().removeIf(key -> key.guildId == guildId);
+  }
+
+  /**
+   * Removes every kept member.
+   */
+  public synchronized void clear() {
+    members.clear();
+  }
+
+  /**
+   * Retrieves the number of kept members.
+   *
+   * @return number of kept members
+   */
+  public synchronized int size() {
+    return members.size();
+  }
+
+  private synchronized Member getIfPresent(Key key) {
+    Entry entry = members.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.loaded > expiryNanos) {
+      members.remove(key);
+      return null;
+    }
+    return entry.member;
+  }
+
+  private synchronized void put(Key key, Member member) {
+    members.put(key, new Entry(member, System.nanoTime()));
+  }
+
+  private static final class Key {
+
+    private final long guildId;
+    private final long userId;
+
+    private Key(long guildId, long userId) {
+      this.guildId = guildId;
+      this.userId = userId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return guildId == other.guildId && userId == other.userId;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(guildId * 31 + userId);
+    }
+  }
+
+  private static final class Entry {
+
+    private final Member member;
+    private final long loaded;
+
+    private Entry(Member member, long loaded) {
+      this.member = member;
+      this.loaded = loaded;
+    }
+  }
+}
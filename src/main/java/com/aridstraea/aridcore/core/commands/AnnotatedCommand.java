@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.utilities.constants.Module;
+import java.util.List;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+
+/**
+ * AnnotatedCommand class of the AridCore project.
+ * Command whose metadata is declared with {@link AridCommand} and generated at compile time.
+ *
+ * <pre>{@code
+ * @AridCommand(aliases = {"ping", "p"}, description = "Replies with pong.")
+ * public class PingCommand extends AnnotatedCommand {
+ *   public PingCommand() {
+ *     super(PingCommand_Metadata.INSTANCE);
+ *   }
+ *   ...
+ * }
+ * }</pre>
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public abstract class AnnotatedCommand extends Command {
+
+  private final CommandMetadata metadata;
+  private final CommandData slashCommandData;
+
+  /**
+   * Creates a new AnnotatedCommand.
+   *
+   * @param metadata generated metadata of the command
+   */
+  protected AnnotatedCommand(CommandMetadata metadata) {
+    this.metadata = metadata;
+    this.slashCommandData = metadata.createSlashCommandData();
+  }
+
+  /**
+   * Retrieves the generated metadata of the command.
+   *
+   * @return metadata of the command
+   */
+  public CommandMetadata getMetadata() {
+    return metadata;
+  }
+
+  @Override
+  public CommandData getSlashCommandData() {
+    return slashCommandData;
+  }
+
+  @Override
+  public List<String> getAliases() {
+    return metadata.getAliases();
+  }
+
+  @Override
+  public Module getModule() {
+    return metadata.getModule();
+  }
+
+  @Override
+  public String getDescription() {
+    return metadata.getDescription();
+  }
+
+  @Override
+  public String getName() {
+    return metadata.getName();
+  }
+
+  @Override
+  public List<String> getUsage() {
+    return metadata.getUsage();
+  }
+
+  @Override
+  public boolean getDefaultPermission() {
+    return metadata.getDefaultPermission();
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.utilities.constants.Module;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * AridCommand annotation of the AridCore project.
+ * Declares the metadata of an {@link AnnotatedCommand}.
+ *
+ * <p>At compile time a <code>&lt;ClassName&gt;_Metadata</code> class is generated next to the
+ * annotated class, holding the aliases, help text and slash command data as constants.
+ * Pass its <code>INSTANCE</code> to the {@link AnnotatedCommand} constructor.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface AridCommand {
+
+  /**
+   * Aliases the command can be called by. The first one is its "mainly" used alias,
+   * and the name of its Slash Command.
+   *
+   * @return aliases of the command
+   */
+  String[] aliases();
+
+  /**
+   * Module the command is a part of.
+   *
+   * @return the Module
+   */
+  Module module() default Module.GENERIC;
+
+  /**
+   * Name of the command shown in help.
+   *
+   * @return name of the command
+   */
+  String name() default "";
+
+  /**
+   * Description of the command, also used for its Slash Command.
+   *
+   * @return description of the command
+   */
+  String description() default "";
+
+  /**
+   * Example usage for the command.
+   *
+   * @return example usage
+   */
+  String[] usage() default {};
+
+  /**
+   * Determines if everyone may use the command, rather than only the owner.
+   *
+   * @return true if default, false if not
+   */
+  boolean defaultPermission() default true;
+}
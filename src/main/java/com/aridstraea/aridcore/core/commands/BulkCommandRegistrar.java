@@ -0,0 +1,305 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.exceptions.RateLimitedException;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+
+/**
+ * BulkCommandRegistrar class of the AridCore project.
+ * Pushes guild-only slash command sets to many guilds at once.
+ *
+ * <p>A fixed number of guilds is worked on at a time, so the requests stay within the route's
+ * rate limit bucket instead of flooding JDA's requester. Guilds whose commands did not change
+ * are skipped by the {@link SlashCommandSynchronizer}. Rate limited and server-side failures are
+ * retried with backoff; anything else is reported as a failure for that guild.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class BulkCommandRegistrar {
+
+  private static final long BASE_BACKOFF = 1000;
+  private static final long MAX_BACKOFF = 30000;
+
+  private final Executor executor;
+  private final SlashCommandSynchronizer synchronizer;
+  private final Function<String, Guild> guildLookup;
+  private final CoreMetrics metrics;
+  private final int concurrency;
+  private final int maxAttempts;
+
+  /**
+   * Creates a new BulkCommandRegistrar.
+   *
+   * @param core         Bot the commands belong to, current while reporting progress
+   * @param synchronizer synchronizer used for each guild
+   * @param guildLookup  resolves a guild ID to its guild, across shards
+   * @param metrics      metrics to count registrations in
+   * @param concurrency  number of guilds updated at the same time
+   * @param maxAttempts  number of attempts per guild before it is reported as failed
+   */
+  public BulkCommandRegistrar(AridCore core, SlashCommandSynchronizer synchronizer,
+      Function<String, Guild> guildLookup, CoreMetrics metrics, int concurrency,
+      int maxAttempts) {
+    this.executor = task -> ForkJoinPool.commonPool().execute(core.bind(task));
+    this.synchronizer = synchronizer;
+    this.guildLookup = guildLookup;
+    this.metrics = metrics;
+    this.concurrency = Math.max(1, concurrency);
+    this.maxAttempts = Math.max(1, maxAttempts);
+  }
+
+  /**
+   * Registers the given command sets, one per guild.
+   *
+   * @param commands guild ID to the commands that guild should have
+   * @param listener notified after every guild, may be null
+   * @return future completing with the report once every guild is done
+   */
+  public CompletableFuture<Report> register(Map<String, List<CommandData>> commands,
+      ProgressListener listener) {
+    Report report = new Report(commands.size());
+    Queue<String> pending = new ConcurrentLinkedQueue<>(commands.keySet());
+    CompletableFuture<Report> done = new CompletableFuture<>();
+    if (pending.isEmpty()) {
+      done.complete(report);
+      return done;
+    }
+
+    AtomicInteger workers = new AtomicInteger(Math.min(concurrency, pending.size()));
+    for (int i = workers.get(); i > 0; i--) {
+      next(pending, commands, report, listener, workers, done);
+    }
+    return done;
+  }
+
+  private void next(Queue<String> pending, Map<String, List<CommandData>> commands,
+      Report report, ProgressListener listener, AtomicInteger workers,
+      CompletableFuture<Report> done) {
+    String guildId = pending.poll();
+    if (guildId == null) {
+      if (workers.decrementAndGet() == 0) {
+        // Hashes are persisted once for the whole run instead of once per guild.
+        try {
+          synchronizer.flush();
+        } finally {
+          done.complete(report);
+        }
+      }
+      return;
+    }
+
+    // Async, so guilds that complete immediately do not grow the stack.
+    attempt(guildId, commands.get(guildId), 1).whenCompleteAsync((result, throwable) -> {
+      try {
+        record(guildId, result, throwable, report, listener);
+      } finally {
+        next(pending, commands, report, listener, workers, done);
+      }
+    }, executor);
+  }
+
+  private void record(String guildId, SlashCommandSynchronizer.Result result,
+      Throwable throwable, Report report, ProgressListener listener) {
+    int completed;
+    try {
+      if (throwable != null) {
+        Throwable cause = unwrap(throwable);
+        report.failed.put(guildId, cause);
+        metrics.increment("commands.bulk.failed");
+        AridCore.getLog().warning("Failed to register commands for guild " + guildId + ": "
+            + cause.getMessage(), OperationStage.INIT);
+      } else if (result.isUnchanged()) {
+        report.unchanged.incrementAndGet();
+        metrics.increment("commands.bulk.unchanged");
+      } else {
+        report.updated.incrementAndGet();
+        metrics.increment("commands.bulk.updated");
+      }
+    } finally {
+      completed = report.completed.incrementAndGet();
+    }
+    if (listener != null) {
+      try {
+        listener.onProgress(guildId, completed, report.total, unwrap(throwable));
+      } catch (RuntimeException re) {
+        AridCore.getLog().error("Command registration progress listener failed.",
+            OperationStage.INIT, re);
+      }
+    }
+  }
+
+  private CompletableFuture<SlashCommandSynchronizer.Result> attempt(String guildId,
+      List<CommandData> commands, int attempt) {
+    Guild guild = guildLookup.apply(guildId);
+    if (guild == null) {
+      return CompletableFuture.failedFuture(
+          new IllegalArgumentException("Guild " + guildId + " is not available to the Bot."));
+    }
+
+    CompletableFuture<SlashCommandSynchronizer.Result> request;
+    try {
+      request = synchronizer.synchronize(guild, commands, false);
+    } catch (RuntimeException re) {
+      return CompletableFuture.failedFuture(re);
+    }
+
+    CompletableFuture<SlashCommandSynchronizer.Result> result = new CompletableFuture<>();
+    request.whenComplete((value, throwable) -> {
+      if (throwable == null) {
+        result.complete(value);
+        return;
+      }
+      long delay = getRetryDelay(unwrap(throwable), attempt);
+      if (delay < 0 || attempt >= maxAttempts) {
+        result.completeExceptionally(unwrap(throwable));
+        return;
+      }
+      metrics.increment("commands.bulk.retried");
+      CompletableFuture.runAsync(() -> attempt(guildId, commands, attempt + 1)
+              .whenComplete((retried, failure) -> {
+                if (failure != null) {
+                  result.completeExceptionally(unwrap(failure));
+                } else {
+                  result.complete(retried);
+                }
+              }),
+          CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor));
+    });
+    return result;
+  }
+
+  /**
+   * Retrieves how long to wait before retrying a failed attempt.
+   *
+   * @param failure cause of the failure
+   * @param attempt number of the failed attempt
+   * @return delay in milliseconds, or -1 if the failure should not be retried
+   */
+  private static long getRetryDelay(Throwable failure, int attempt) {
+    long backoff = Math.min(MAX_BACKOFF, BASE_BACKOFF << Math.min(attempt - 1, 5));
+    if (failure instanceof RateLimitedException) {
+      return Math.max(((RateLimitedException) failure).getRetryAfter(), 0);
+    } else if (failure instanceof ErrorResponseException) {
+      ErrorResponseException ere = (ErrorResponseException) failure;
+      if (ere.getResponse() != null && ere.getResponse().isRateLimit()) {
+        return Math.max(ere.getResponse().retryAfter, backoff);
+      } else if (ere.isServerError()) {
+        return backoff;
+      }
+    }
+    return -1;
+  }
+
+  private static Throwable unwrap(Throwable throwable) {
+    while ((throwable instanceof CompletionException || throwable instanceof ExecutionException)
+        && throwable.getCause() != null) {
+      throwable = throwable.getCause();
+    }
+    return throwable;
+  }
+
+  /**
+   * Notified after every guild of a bulk registration.
+   */
+  @FunctionalInterface
+  public interface ProgressListener {
+
+    /**
+     * Called once the commands of a guild were registered, skipped or failed.
+     *
+     * @param guildId   guild that was handled
+     * @param completed number of guilds handled so far
+     * @param total     number of guilds in the registration
+     * @param failure   cause if the guild failed, null if not
+     */
+    void onProgress(String guildId, int completed, int total, Throwable failure);
+  }
+
+  /**
+   * Outcome of a bulk registration.
+   */
+  public static final class Report {
+
+    private final int total;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final Map<String, Throwable> failed = new ConcurrentHashMap<>();
+
+    private Report(int total) {
+      this.total = total;
+    }
+
+    public int getTotal() {
+      return total;
+    }
+
+    public int getUpdated() {
+      return updated.get();
+    }
+
+    public int getUnchanged() {
+      return unchanged.get();
+    }
+
+    /**
+     * Retrieves the guilds that failed, with the cause of the last attempt.
+     *
+     * @return guild ID to failure
+     */
+    public Map<String, Throwable> getFailed() {
+      return Collections.unmodifiableMap(failed);
+    }
+
+    /**
+     * Retrieves the IDs of the guilds that failed, e.g. to retry them later.
+     *
+     * @return failed guild IDs
+     */
+    public List<String> getFailedGuildIds() {
+      return new ArrayList<>(failed.keySet());
+    }
+
+    @Override
+    public String toString() {
+      return total + " guild(s): " + updated.get() + " updated, " + unchanged.get()
+          + " unchanged, " + failed.size() + " failed";
+    }
+  }
+}
@@ -17,23 +17,44 @@
 package com.aridstraea.aridcore.core.commands;
 
 import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.commands.arguments.ArgumentSchema;
+import com.aridstraea.aridcore.core.commands.arguments.Arguments;
+import com.aridstraea.aridcore.core.gateway.GatewayRequirements;
 import com.aridstraea.aridcore.utilities.constants.Module;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.EnumSet;
 import java.util.List;
-import net.dv8tion.jda.api.entities.Message;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.GatewayIntent;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Command class of the AridCore project.
  * All methods are explained here.
  *
+ * <p>Commands are run by the {@link CommandDispatcher} once registered with the Bot; they
+ * handle no events themselves, so registering one as an event listener has no effect.
+ *
  * @author aristraea
  * @since 0.1.0-S
  */
-public abstract class Command extends ListenerAdapter {
+public abstract class Command extends ListenerAdapter implements GatewayRequirements {
+
+  private static final AtomicInteger permissionNodes = new AtomicInteger();
+
+  final int permissionNode = permissionNodes.getAndIncrement();
+  long requiredPermissions;
+  long deferBudget = -1;
+  long timeout = -1;
+  private volatile String slashName;
+  private ArgumentSchema argumentSchema;
+  private final ThreadLocal<Arguments> arguments =
+      ThreadLocal.withInitial(() -> argumentSchema.newArguments());
 
   /**
    * Calls a slash command.
@@ -58,6 +79,66 @@ public abstract class Command extends ListenerAdapter {
    */
   protected abstract void onCommand(MessageReceivedEvent mre, String[] args);
 
+  /**
+   * Calls a command whose arguments are declared by {@link #createArgumentSchema()}.
+   * The arguments are only valid until this method returns; use {@link Arguments#copy()}
+   * to keep them. Must be overridden by commands declaring a schema, which is checked when
+   * they are registered.
+   *
+   * @param mre  Event triggered
+   * @param args Parsed arguments
+   */
+  protected void onCommand(MessageReceivedEvent mre, Arguments args) {
+    // Unreachable: commands with a schema that do not override this are rejected by compile().
+    throw new UnsupportedOperationException(getName() + " does not handle parsed arguments.");
+  }
+
+  /**
+   * Declares typed arguments for the command. If a schema is returned, messages are parsed
+   * with it and passed to {@link #onCommand(MessageReceivedEvent, Arguments)} instead of
+   * {@link #onCommand(MessageReceivedEvent, String[])}. Called once, when registered.
+   *
+   * @return schema of the arguments, or null to receive the split message
+   */
+  protected ArgumentSchema createArgumentSchema() {
+    return null;
+  }
+
+  /**
+   * Compiles the argument schema & required permissions of the command.
+   *
+   * @throws IllegalStateException if the command declares an argument schema but does not
+   *                               override {@link #onCommand(MessageReceivedEvent, Arguments)}
+   */
+  void compile() {
+    ArgumentSchema schema = createArgumentSchema();
+    if (schema != null && !handlesArguments()) {
+      throw new IllegalStateException(getName() + " declares an argument schema but does not"
+          + " override onCommand(MessageReceivedEvent, Arguments).");
+    }
+    argumentSchema = schema;
+    requiredPermissions = Permission.getRaw(getRequiredPermissions());
+    deferBudget = getDeferBudget();
+    timeout = getTimeout();
+  }
+
+  /**
+   * Determines if a subclass overrides {@link #onCommand(MessageReceivedEvent, Arguments)}.
+   *
+   * @return true if overridden
+   */
+  private boolean handlesArguments() {
+    for (Class<?> c = getClass(); c != Command.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod("onCommand", MessageReceivedEvent.class, Arguments.class);
+        return true;
+      } catch (NoSuchMethodException nsme) {
+        // Check the superclass.
+      }
+    }
+    return false;
+  }
+
   /**
    * Returns a list of aliases that the command can be called by. The first one is it's "mainly"
    * used alias.
@@ -104,68 +185,144 @@ public abstract class Command extends ListenerAdapter {
   public abstract boolean getDefaultPermission();
 
   /**
-   * Called when Message is received visible to the Bot. Determines if there was a command called,
-   * and if so, executes the command.
+   * Discord permissions a member needs to use the traditional command, unless a role
+   * of theirs was granted it through the {@link PermissionManager}.
    *
-   * @param mre Event triggered.
+   * @return required permissions
+   */
+  public EnumSet<Permission> getRequiredPermissions() {
+    return EnumSet.noneOf(Permission.class);
+  }
+
+  /**
+   * Milliseconds the Slash Command may take before AridCore defers its reply, so the
+   * interaction does not expire. Reply through
+   * {@link com.aridstraea.aridcore.utilities.MessageUtilities#reply} to handle both cases.
+   *
+   * @return budget in milliseconds, 0 to never defer, or -1 for the configured default
+   */
+  protected long getDeferBudget() {
+    return -1;
+  }
+
+  /**
+   * Milliseconds the command may run before AridCore cancels it. On timeout, requests sent
+   * through its {@link ExecutionScope} are cancelled and its thread is interrupted.
+   *
+   * @return timeout in milliseconds, 0 for no limit, or -1 for the configured default
+   */
+  protected long getTimeout() {
+    return -1;
+  }
+
+  /**
+   * Traditional commands are parsed from message content.
+   *
+   * @return required intents
    */
   @Override
-  public void onMessageReceived(MessageReceivedEvent mre) {
-    if (mre.getAuthor().isBot() && !respondToBots()) {
+  public EnumSet<GatewayIntent> getRequiredIntents() {
+    return EnumSet.of(GatewayIntent.MESSAGE_CONTENT);
+  }
+
+  /**
+   * Executes the command for a message already matched to it, checking permissions first.
+   *
+   * @param mre  Event triggered
+   * @param args Split message
+   */
+  void execute(MessageReceivedEvent mre, String[] args) {
+    if (!AridCore.getPermissions().canUse(this, mre.getAuthor(), mre.getMember())) {
       return;
     }
-    if (commandArgs(mre.getMessage())[0].contains(AridCore.getConfig().getPrefix())
-        && containsCommand(mre.getMessage())) {
-      String id = mre.getAuthor().getId();
-      if (!id.contains(AridCore.getConfig().getOwnerId()) && !getDefaultPermission()) {
-        return;
-      }
-      onCommand(mre, commandArgs(mre.getMessage()));
+    ExecutionTracker tracker = AridCore.getExecutionTracker();
+    if (!tracker.tryEnter()) {
+      return;
+    }
+    try {
+      runScoped(() -> {
+        if (argumentSchema == null) {
+          onCommand(mre, args);
+        } else {
+          dispatchArguments(mre);
+        }
+      });
+    } finally {
+      tracker.exit();
     }
   }
 
   /**
-   * Called when Slash Command is received visible to the Bot. Determines if there was a command
-   * called, and if so, executes the command.
+   * Executes the command for a Slash Command already matched to it.
    *
-   * @param sce Event triggered.
+   * @param sce Event triggered
    */
-  @Override
-  public void onSlashCommandInteraction(SlashCommandInteractionEvent sce) {
-    if (sce.getName().equals(getSlashCommandData().getName())) {
-      onSlashCommand(sce);
+  void execute(SlashCommandInteractionEvent sce) {
+    ExecutionTracker tracker = AridCore.getExecutionTracker();
+    if (!tracker.tryEnter()) {
+      return;
+    }
+    try {
+      runScoped(() -> onSlashCommand(sce));
+    } finally {
+      tracker.exit();
     }
   }
 
   /**
-   * Determines if the message contained a command.
+   * Runs the command within its {@link ExecutionScope}. Exceptions thrown because the command
+   * timed out, such as by {@link ExecutionScope#checkCancelled()} or an interrupted call, end
+   * the command quietly; the timeout itself was already logged.
    *
-   * @param message message to scan
-   * @return true if message contained command, false if not.
+   * @param body command execution
    */
-  private boolean containsCommand(Message message) {
-    return getAliases().contains(
-        commandArgs(message)[0].replace(AridCore.getConfig().getPrefix(), ""));
+  private void runScoped(Runnable body) {
+    try (ExecutionScope scope = AridCore.getCommandTimeouts().open(this)) {
+      try {
+        body.run();
+      } catch (RuntimeException re) {
+        if (!scope.isCancelled()) {
+          throw re;
+        }
+        AridCore.getLog().debug("Command " + getName() + " stopped after its timeout: " + re,
+            OperationStage.COMMAND_CALL);
+      }
+    }
   }
 
   /**
-   * Breaks up the message into String[].
+   * Parses the raw message with the argument schema and calls the command, or replies with
+   * the parse error.
    *
-   * @param message message to split
-   * @return String[] of the split message.
+   * @param mre Event triggered
    */
-  private String[] commandArgs(Message message) {
-    return commandArgs(message.getContentDisplay());
+  private void dispatchArguments(MessageReceivedEvent mre) {
+    String content = mre.getMessage().getContentRaw();
+    int from = 0;
+    while (from < content.length() && !Character.isWhitespace(content.charAt(from))) {
+      from++;
+    }
+    Arguments parsed = arguments.get();
+    if (argumentSchema.parse(content, from, parsed)) {
+      onCommand(mre, parsed);
+    } else {
+      mre.getChannel().sendMessage(parsed.getError()).queue();
+    }
   }
 
   /**
-   * Breaks up the message into String[].
+   * Retrieves the name of the Slash Command, without rebuilding its data on every event.
    *
-   * @param string message to split
-   * @return String[] of the split message.
+   * @return slash command name, or empty for traditional-only commands
    */
-  private String[] commandArgs(String string) {
-    return string.split(" ");
+  String getSlashName() {
+    String name = slashName;
+    if (name == null) {
+      CommandData data = getSlashCommandData();
+      name = data == null ? "" : data.getName();
+      slashName = name;
+    }
+    return name;
   }
 
   /**
@@ -174,7 +331,7 @@ public abstract class Command extends ListenerAdapter {
    * @return true if the Bot will respond to other Bots, false if not.
    */
   @SuppressWarnings("SameReturnValue")
-  private boolean respondToBots() {
+  boolean respondToBots() {
     return false;
   }
 }
@@ -0,0 +1,261 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.gateway.GatewayRequirements;
+import com.aridstraea.aridcore.core.threads.AdmissionController;
+import com.aridstraea.aridcore.core.threads.AdmissionController.Lane;
+import com.aridstraea.aridcore.core.threads.ModuleBulkheads;
+import com.aridstraea.aridcore.utilities.MessageUtilities;
+import com.aridstraea.aridcore.utilities.constants.Module;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * CommandDispatcher class of the AridCore project.
+ * Routes messages and Slash Commands to registered commands through an alias index,
+ * instead of every command checking every event.
+ *
+ * <p>Commands are queued by the {@link AdmissionController}, Slash Commands and commands of
+ * owners and administrators first, then run in their module's bulkhead
+ * (see {@link ModuleBulkheads}). Shed Slash Commands are answered as busy, as interactions
+ * must be acknowledged; shed text commands are only counted, so shedding adds no messages.
+ *
+ * <p>{@link Module}s can be disabled globally, which removes their commands from the index,
+ * or per guild, which skips them after the lookup. Either way their handlers are not run.
+ * Messages blocked by the {@link com.aridstraea.aridcore.core.moderation.ContentFilter} are
+ * not dispatched either.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class CommandDispatcher extends ListenerAdapter implements GatewayRequirements {
+
+  private static final String DISABLED = "This command is currently disabled.";
+  /** Interactions must be acknowledged within 3 seconds; leave time to do so. */
+  private static final long INTERACTION_DEADLINE = 2500;
+  private static final String BUSY = "This command is busy right now. Please try again shortly.";
+
+  private final List<Command> commands = new ArrayList<>();
+  private final Map<Long, Set<Module>> guildDisabled = new ConcurrentHashMap<>();
+  private volatile Set<Module> disabled = Set.of();
+  private volatile Map<String, Command> aliasIndex = Map.of();
+  private volatile Map<String, Command> slashIndex = Map.of();
+
+  /**
+   * Adds a command to the dispatch index.
+   *
+   * @param command command to add
+   * @return command added
+   */
+  public synchronized Command register(Command command) {
+    if (!commands.contains(command)) {
+      commands.add(command);
+      rebuild();
+    }
+    return command;
+  }
+
+  /**
+   * Retrieves the registered commands, including those of disabled modules.
+   *
+   * @return unmodifiable list of commands
+   */
+  public synchronized List<Command> getCommands() {
+    return List.copyOf(commands);
+  }
+
+  /**
+   * Enables a module for every guild it is not disabled in separately.
+   *
+   * @param module module to enable
+   * @return CommandDispatcher instance
+   */
+  public synchronized CommandDispatcher enableModule(Module module) {
+    EnumSet<Module> updated = copy(disabled);
+    if (updated.remove(module)) {
+      disabled = Collections.unmodifiableSet(updated);
+      rebuild();
+    }
+    return this;
+  }
+
+  /**
+   * Disables a module everywhere, removing its commands from the dispatch index.
+   *
+   * @param module module to disable
+   * @return CommandDispatcher instance
+   */
+  public synchronized CommandDispatcher disableModule(Module module) {
+    EnumSet<Module> updated = copy(disabled);
+    if (updated.add(module)) {
+      disabled = Collections.unmodifiableSet(updated);
+      rebuild();
+      AridCore.getLog().info("Disabled module " + module.getName() + ".", OperationStage.INIT);
+    }
+    return this;
+  }
+
+  /**
+   * Enables a module in a guild that it was disabled in.
+   *
+   * @param guildId ID of the guild
+   * @param module  module to enable
+   * @return CommandDispatcher instance
+   */
+  public CommandDispatcher enableModule(long guildId, Module module) {
+    guildDisabled.computeIfPresent(guildId, (id, modules) -> {
+      EnumSet<Module> updated = copy(modules);
+      updated.remove(module);
+      return updated.isEmpty() ? null : Collections.unmodifiableSet(updated);
+    });
+    return this;
+  }
+
+  /**
+   * Disables a module in a guild.
+   *
+   * @param guildId ID of the guild
+   * @param module  module to disable
+   * @return CommandDispatcher instance
+   */
+  public CommandDispatcher disableModule(long guildId, Module module) {
+    guildDisabled.compute(guildId, (id, modules) -> {
+      EnumSet<Module> updated = modules == null ? EnumSet.noneOf(Module.class) : copy(modules);
+      updated.add(module);
+      return Collections.unmodifiableSet(updated);
+    });
+    return this;
+  }
+
+  /**
+   * Determines if a module is enabled.
+   *
+   * @param module  module to check
+   * @param guildId ID of the guild, or 0 outside of guilds
+   * @return true if enabled, false if not
+   */
+  public boolean isEnabled(Module module, long guildId) {
+    if (disabled.contains(module)) {
+      return false;
+    }
+    Set<Module> modules = guildId == 0 ? null : guildDisabled.get(guildId);
+    return modules == null || !modules.contains(module);
+  }
+
+  /**
+   * Traditional commands are parsed from message content.
+   *
+   * @return required intents
+   */
+  @Override
+  public EnumSet<GatewayIntent> getRequiredIntents() {
+    return EnumSet.of(GatewayIntent.MESSAGE_CONTENT);
+  }
+
+  @Override
+  public void onMessageReceived(@NotNull MessageReceivedEvent mre) {
+    if (AridCore.getSpamDetector().inspect(mre)) {
+      return;
+    }
+    String content = mre.getMessage().getContentDisplay();
+    int end = content.indexOf(' ');
+    String first = end < 0 ? content : content.substring(0, end);
+    String prefix = AridCore.getConfig().getPrefix();
+    if (!first.contains(prefix)) {
+      return;
+    }
+
+    Command command = aliasIndex.get(first.replace(prefix, ""));
+    if (command == null || mre.getAuthor().isBot() && !command.respondToBots()) {
+      return;
+    }
+    long guildId = mre.isFromGuild() ? mre.getGuild().getIdLong() : 0;
+    // Blocked messages are handled by the ContentFilter, and never run as commands.
+    if (!isEnabled(command.getModule(), guildId) || AridCore.getContentFilter().blocks(mre)
+        || !AridCore.getDeduplicator().firstSeen(mre.getMessageIdLong())) {
+      return;
+    }
+    String[] args = content.split(" ");
+    Member member = mre.getMember();
+    boolean privileged = AridCore.getPermissions().isOwner(mre.getAuthor().getIdLong())
+        || member != null && member.hasPermission(Permission.ADMINISTRATOR);
+    AridCore.getAdmission().submit(privileged ? Lane.PRIORITY : Lane.NORMAL,
+        command.getModule(), () -> command.execute(mre, args),
+        () -> { }, AdmissionController.NO_DEADLINE);
+  }
+
+  @Override
+  public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent sce) {
+    Command command = slashIndex.get(sce.getName());
+    if (command == null || !AridCore.getDeduplicator().firstSeen(sce.getIdLong())) {
+      return;
+    }
+    long guildId = sce.getGuild() != null ? sce.getGuild().getIdLong() : 0;
+    if (!isEnabled(command.getModule(), guildId)) {
+      MessageUtilities.reply(sce, DISABLED, true);
+      return;
+    }
+    AridCore.getInteractionDeadlines().watch(command, sce);
+    AridCore.getAdmission().submit(Lane.PRIORITY, command.getModule(),
+        () -> command.execute(sce), () -> MessageUtilities.reply(sce, BUSY, true),
+        INTERACTION_DEADLINE);
+  }
+
+  private void rebuild() {
+    Map<String, Command> aliases = new HashMap<>();
+    Map<String, Command> slash = new HashMap<>();
+    for (Command command : commands) {
+      // Slash Commands stay indexed, so disabled ones can still be answered.
+      String slashName = command.getSlashName();
+      if (!slashName.isEmpty()) {
+        slash.put(slashName, command);
+      }
+      if (disabled.contains(command.getModule())) {
+        continue;
+      }
+      for (String alias : command.getAliases()) {
+        Command previous = aliases.put(alias, command);
+        if (previous != null && previous != command) {
+          AridCore.getLog().warning("Alias " + alias + " of " + command.getName()
+              + " replaces the one of " + previous.getName() + ".", OperationStage.INIT);
+        }
+      }
+    }
+    aliasIndex = Map.copyOf(aliases);
+    slashIndex = Map.copyOf(slash);
+  }
+
+  private static EnumSet<Module> copy(Set<Module> modules) {
+    return modules.isEmpty() ? EnumSet.noneOf(Module.class) : EnumSet.copyOf(modules);
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.utilities.constants.Module;
+import java.util.List;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+
+/**
+ * CommandMetadata interface of the AridCore project.
+ * Implemented by the classes generated for {@link AridCommand}; values are computed once.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public interface CommandMetadata {
+
+  /**
+   * Retrieves the aliases of the command, the main alias first.
+   *
+   * @return unmodifiable list of aliases
+   */
+  List<String> getAliases();
+
+  Module getModule();
+
+  String getName();
+
+  String getDescription();
+
+  /**
+   * Retrieves example usage for the command.
+   *
+   * @return unmodifiable list of usage lines
+   */
+  List<String> getUsage();
+
+  boolean getDefaultPermission();
+
+  /**
+   * Retrieves the name of the Slash Command.
+   *
+   * @return slash command name
+   */
+  String getSlashName();
+
+  /**
+   * Creates the Slash Command data. Called once per {@link AnnotatedCommand}.
+   *
+   * @return data of the Slash Command
+   */
+  CommandData createSlashCommandData();
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CommandTimeouts class of the AridCore project.
+ * Enforces the execution timeout of commands.
+ *
+ * <p>Every invocation runs in an {@link ExecutionScope}. When a command has a timeout, a
+ * watchdog cancels its scope once it expires: pending requests of the scope are cancelled,
+ * the command's thread is interrupted, and the timeout is logged and counted as
+ * <code>command.&lt;name&gt;.timeouts</code>.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class CommandTimeouts {
+
+  private final AridCore core;
+  private final CoreMetrics metrics;
+  private ScheduledThreadPoolExecutor timer;
+  private long defaultTimeout;
+
+  /**
+   * Creates new CommandTimeouts.
+   *
+   * @param core    Bot the commands belong to
+   * @param metrics metrics to count timeouts in
+   */
+  public CommandTimeouts(AridCore core, CoreMetrics metrics) {
+    this.core = core;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sets the timeout of commands that do not declare their own.
+   *
+   * @param timeout milliseconds a command may run, 0 for no limit
+   * @return CommandTimeouts instance
+   */
+  public synchronized CommandTimeouts setDefaultTimeout(long timeout) {
+    this.defaultTimeout = Math.max(0, timeout);
+    return this;
+  }
+
+  /**
+   * Opens the scope of a command invocation on the calling thread. Must be closed once the
+   * command returns.
+   *
+   * @param command command being invoked
+   * @return scope of the invocation
+   */
+  ExecutionScope open(Command command) {
+    long timeout = command.timeout < 0 ? defaultTimeout : command.timeout;
+    if (timeout == 0) {
+      return new ExecutionScope(0);
+    }
+    ExecutionScope scope = new ExecutionScope(System.currentTimeMillis() + timeout);
+    scope.setWatchdog(getTimer().schedule(() -> {
+      if (scope.cancel()) {
+        String name = command.getName();
+        metrics.increment("command." + name + ".timeouts");
+        AridCore.getLog().warning("Command " + name + " timed out after " + timeout
+            + "ms; cancelled its pending requests.", OperationStage.COMMAND_CALL);
+      }
+    }, timeout, TimeUnit.MILLISECONDS));
+    return scope;
+  }
+
+  /**
+   * Stops the watchdog; commands still running are no longer limited.
+   */
+  public synchronized void shutdown() {
+    if (timer != null) {
+      timer.shutdownNow();
+      timer = null;
+    }
+  }
+
+  private synchronized ScheduledThreadPoolExecutor getTimer() {
+    if (timer == null) {
+      timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(core.bind(runnable), "AridCore-CommandTimeouts");
+        thread.setDaemon(true);
+        return thread;
+      });
+      timer.setRemoveOnCancelPolicy(true);
+    }
+    return timer;
+  }
+}
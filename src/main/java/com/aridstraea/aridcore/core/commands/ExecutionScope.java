@@ -0,0 +1,197 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import net.dv8tion.jda.api.requests.RestAction;
+
+/**
+ * ExecutionScope class of the AridCore project.
+ * Bounds a single command invocation, so it can be cancelled when it runs out of time.
+ *
+ * <p>Requests sent through {@link #queue(RestAction)} or {@link #submit(RestAction)} carry the
+ * scope's deadline and are cancelled with it. Long-running commands should check
+ * {@link #checkCancelled()} between steps; blocking calls are interrupted.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public final class ExecutionScope implements AutoCloseable {
+
+  private static final ThreadLocal<ExecutionScope> current = new ThreadLocal<>();
+
+  private final Thread thread = Thread.currentThread();
+  private final ExecutionScope parent = current.get();
+  private final long deadline;
+  private final List<CompletableFuture<?>> pending = new ArrayList<>();
+  private Future<?> watchdog;
+  private boolean closed;
+  private boolean cancelled;
+
+  /**
+   * Opens a scope on the calling thread.
+   *
+   * @param deadline epoch millisecond the scope expires at, or 0 for none
+   */
+  ExecutionScope(long deadline) {
+    this.deadline = deadline;
+    current.set(this);
+  }
+
+  /**
+   * Retrieves the scope of the command running on the calling thread.
+   *
+   * @return current scope, or null outside of a command
+   */
+  public static ExecutionScope current() {
+    return current.get();
+  }
+
+  /**
+   * Queues a request bound to the current scope, or plainly if there is none.
+   *
+   * @param action request to send
+   */
+  public static void queueBound(RestAction<?> action) {
+    ExecutionScope scope = current();
+    if (scope == null) {
+      action.queue();
+    } else {
+      scope.queue(action);
+    }
+  }
+
+  /**
+   * Retrieves the time the scope expires at.
+   *
+   * @return epoch millisecond, or 0 if the command has no timeout
+   */
+  public long getDeadline() {
+    return deadline;
+  }
+
+  /**
+   * Determines if the command ran out of time.
+   *
+   * @return true if cancelled
+   */
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Stops the command if it ran out of time.
+   *
+   * @throws CancellationException if the scope was cancelled
+   */
+  public void checkCancelled() {
+    if (isCancelled()) {
+      throw new CancellationException("Command execution timed out.");
+    }
+  }
+
+  /**
+   * Sends a request that is cancelled with the scope.
+   *
+   * @param action request to send
+   * @param <T>    type of the response
+   * @return future of the response
+   */
+  public <T> CompletableFuture<T> submit(RestAction<T> action) {
+    CompletableFuture<T> future = (deadline > 0 ? action.deadline(deadline) : action).submit();
+    synchronized (this) {
+      if (cancelled) {
+        future.cancel(true);
+      } else {
+        pending.removeIf(CompletableFuture::isDone);
+        pending.add(future);
+      }
+    }
+    return future;
+  }
+
+  /**
+   * Queues a request that is cancelled with the scope. Failures other than the cancellation
+   * are passed to the default failure handler, as with {@link RestAction#queue()}.
+   *
+   * @param action request to send
+   */
+  public void queue(RestAction<?> action) {
+    submit(action).whenComplete((response, failure) -> {
+      if (failure != null && !(failure instanceof CancellationException)) {
+        RestAction.getDefaultFailure().accept(failure);
+      }
+    });
+  }
+
+  /**
+   * Sets the timer that cancels the scope.
+   *
+   * @param watchdog scheduled cancellation
+   */
+  synchronized void setWatchdog(Future<?> watchdog) {
+    this.watchdog = watchdog;
+  }
+
+  /**
+   * Cancels pending requests and interrupts the command, if it is still running.
+   *
+   * @return true if the scope was cancelled, false if the command had already finished
+   */
+  synchronized boolean cancel() {
+    if (closed || cancelled) {
+      return false;
+    }
+    cancelled = true;
+    for (CompletableFuture<?> future : pending) {
+      future.cancel(true);
+    }
+    pending.clear();
+    thread.interrupt();
+    return true;
+  }
+
+  /**
+   * Closes the scope once the command returns. Clears the interrupt left by a cancellation,
+   * so it does not leak into whatever the thread runs next.
+   */
+  @Override
+  public void close() {
+    boolean interrupted;
+    synchronized (this) {
+      closed = true;
+      interrupted = cancelled;
+      pending.clear();
+      if (watchdog != null) {
+        watchdog.cancel(false);
+      }
+    }
+    if (parent == null) {
+      current.remove();
+    } else {
+      current.set(parent);
+    }
+    if (interrupted) {
+      Thread.interrupted();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ExecutionTracker class of the AridCore project.
+ * Counts the command executions in flight, so shutdown can stop accepting new
+ * commands and wait for running ones to finish.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class ExecutionTracker {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition idle = lock.newCondition();
+  private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+  private volatile boolean accepting = true;
+  private int inFlight = 0;
+
+  /**
+   * Starts tracking an execution on the current thread.
+   * Every successful call must be followed by {@link #exit()}.
+   *
+   * @return true if the execution may run, false if new executions are no longer accepted
+   */
+  public boolean tryEnter() {
+    if (!accepting) {
+      return false;
+    }
+    lock.lock();
+    try {
+      if (!accepting) {
+        return false;
+      }
+      inFlight++;
+    } finally {
+      lock.unlock();
+    }
+    depth.get()[0]++;
+    return true;
+  }
+
+  /**
+   * Stops tracking an execution on the current thread.
+   */
+  public void exit() {
+    depth.get()[0]--;
+    lock.lock();
+    try {
+      inFlight--;
+      idle.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops accepting new executions. Running executions are unaffected.
+   */
+  public void stopAccepting() {
+    accepting = false;
+  }
+
+  /**
+   * Retrieves if new executions are accepted.
+   *
+   * @return true if accepted, false if not
+   */
+  public boolean isAccepting() {
+    return accepting;
+  }
+
+  /**
+   * Retrieves the number of executions in flight.
+   *
+   * @return number of executions in flight
+   */
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits for every execution in flight to finish, up to a deadline. Executions running on
+   * the calling thread (e.g. a command that shuts the Bot down) are not waited for.
+   *
+   * @param timeout maximum time to wait
+   * @param unit    unit of the timeout
+   * @return true if every execution finished, false if the deadline passed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+    int own = depth.get()[0];
+    long remaining = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (inFlight > own) {
+        if (remaining <= 0) {
+          return false;
+        }
+        remaining = idle.awaitNanos(remaining);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import java.util.Arrays;
+
+/**
+ * GuildPermissions class of the AridCore project.
+ * Compiled role grants of one guild: role IDs sorted for binary search, each with a bitset
+ * of the commands it grants. Immutable; changes produce a new instance.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+final class GuildPermissions {
+
+  static final GuildPermissions EMPTY = new GuildPermissions(new long[0], new long[0][]);
+
+  private final long[] roleIds;
+  private final long[][] grants;
+
+  private GuildPermissions(long[] roleIds, long[][] grants) {
+    this.roleIds = roleIds;
+    this.grants = grants;
+  }
+
+  /**
+   * Determines if a role grants a command.
+   *
+   * @param roleId ID of the role
+   * @param node   permission node of the command
+   * @return true if granted, false if not
+   */
+  boolean grants(long roleId, int node) {
+    int index = Arrays.binarySearch(roleIds, roleId);
+    if (index < 0) {
+      return false;
+    }
+    long[] bits = grants[index];
+    int word = node >>> 6;
+    return word < bits.length && (bits[word] & (1L << node)) != 0;
+  }
+
+  boolean isEmpty() {
+    return roleIds.length == 0;
+  }
+
+  GuildPermissions with(long roleId, int node, boolean granted) {
+    int index = Arrays.binarySearch(roleIds, roleId);
+    long[] newRoleIds = roleIds;
+    long[][] newGrants = grants;
+    if (index < 0) {
+      if (!granted) {
+        return this;
+      }
+      index = -index - 1;
+      newRoleIds = new long[roleIds.length + 1];
+      newGrants = new long[grants.length + 1][];
+      System.arraycopy(roleIds, 0, newRoleIds, 0, index);
+      System.arraycopy(roleIds, index, newRoleIds, index + 1, roleIds.length - index);
+      System.arraycopy(grants, 0, newGrants, 0, index);
+      System.arraycopy(grants, index, newGrants, index + 1, grants.length - index);
+      newRoleIds[index] = roleId;
+      newGrants[index] = new long[0];
+    } else {
+      newGrants = grants.clone();
+    }
+
+    int word = node >>> 6;
+    long[] bits = Arrays.copyOf(newGrants[index], Math.max(newGrants[index].length, word + 1));
+    if (granted) {
+      bits[word] |= 1L << node;
+    } else {
+      bits[word] &= ~(1L << node);
+    }
+    newGrants[index] = bits;
+
+    if (!granted && isZero(bits)) {
+      return without(newRoleIds, newGrants, index);
+    }
+    return new GuildPermissions(newRoleIds, newGrants);
+  }
+
+  GuildPermissions withoutRole(long roleId) {
+    int index = Arrays.binarySearch(roleIds, roleId);
+    return index < 0 ? this : without(roleIds, grants, index);
+  }
+
+  private static GuildPermissions without(long[] roleIds, long[][] grants, int index) {
+    long[] newRoleIds = new long[roleIds.length - 1];
+    long[][] newGrants = new long[grants.length - 1][];
+    System.arraycopy(roleIds, 0, newRoleIds, 0, index);
+    System.arraycopy(roleIds, index + 1, newRoleIds, index, roleIds.length - index - 1);
+    System.arraycopy(grants, 0, newGrants, 0, index);
+    System.arraycopy(grants, index + 1, newGrants, index, grants.length - index - 1);
+    return new GuildPermissions(newRoleIds, newGrants);
+  }
+
+  private static boolean isZero(long[] bits) {
+    for (long word : bits) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.aridstraea.aridcore.core.commands;
 
+import com.aridstraea.aridcore.core.listeners.ComponentRouter;
+import com.aridstraea.aridcore.core.listeners.ComponentState;
 import com.aridstraea.aridcore.utilities.MessageUtilities;
 import com.aridstraea.aridcore.utilities.constants.Module;
 import com.aridstraea.aridcore.utilities.constants.OperationStage;
@@ -29,9 +31,11 @@ import java.util.List;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.channel.concrete.PrivateChannel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.GenericComponentInteractionCreateEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
@@ -39,14 +43,23 @@ import org.jetbrains.annotations.NotNull;
  * HelpCommand class of the AridCore project.
  * All methods are explained in {@link Command}
  *
+ * <p>The list of modules is paged, one module per page, with buttons routed through the
+ * {@link ComponentRouter} under {@link #PAGE_COMPONENT}.
+ *
  * @author aristraea
  * @since 0.1.0-S
  */
-public class HelpCommand extends Command {
+public class HelpCommand extends Command implements ComponentRouter.ComponentHandler {
+
+  /**
+   * ID the page buttons are routed with.
+   */
+  public static final int PAGE_COMPONENT = 0;
 
   private static final String NO_NAME = "No name provided for this command.";
   private static final String NO_DESCRIPTION = "No description provided for this command.";
   private static final String NO_USAGE = "No usage instructions provided for this command.";
+  private static final List<String> ALIASES = List.of("help", "commands");
 
   public final HashMap<String, Command> commands;
   public List<Module> modules;
@@ -66,6 +79,7 @@ public class HelpCommand extends Command {
    * @return command added.
    */
   public Command registerCommand(Command command) {
+    command.compile();
     commands.put(command.getAliases().get(0), command);
     return command;
   }
@@ -97,19 +111,51 @@ public class HelpCommand extends Command {
     // Bypass sending message if it is already in a private message.
     MessageUtilities.sendIfNotPrivate(mre);
     // Send help message
-    EmbedBuilder embed = AridCore.getHelp().buildEmbed(args);
+    long guildId = mre.isFromGuild() ? mre.getGuild().getIdLong() : 0;
+    EmbedBuilder embed = AridCore.getHelp().buildEmbed(args, guildId);
     PrivateChannel channel = mre.getAuthor().openPrivateChannel().complete();
 
     if (embed == null) {
       MessageUtilities.doesNotExist(channel, args[1], "commands");
       return;
     }
+    if (args.length < 2) {
+      channel.sendMessageEmbeds(embed.build())
+          .setActionRow(pageButtons(0, getActiveModules(guildId).size(), guildId))
+          .queue();
+      return;
+    }
     channel.sendMessageEmbeds(embed.build()).queue();
   }
 
+  @Override
+  public void handle(GenericComponentInteractionCreateEvent event, ComponentState state) {
+    int page = state.readInt();
+    long guildId = state.readLong();
+    List<Module> active = getActiveModules(guildId);
+    page = Math.max(0, Math.min(page, active.size()));
+
+    EmbedBuilder embed;
+    if (page == 0) {
+      embed = buildEmbed(new String[] {"help"}, guildId);
+    } else {
+      Module module = active.get(page - 1);
+      embed = new EmbedBuilder().setTitle(module.getName()).setColor(Color.RED);
+      MessageUtilities.addEmbedDefaults(embed);
+      for (Command c : getCommandsInModule(module, guildId)) {
+        String description = c.getDescription();
+        embed.addField(c.getName(), description == null || description.isEmpty()
+            ? NO_DESCRIPTION : description, false);
+      }
+    }
+    event.editMessageEmbeds(embed.build())
+        .setActionRow(pageButtons(page, active.size(), guildId))
+        .queue();
+  }
+
   @Override
   public List<String> getAliases() {
-    return Arrays.asList("help", "commands");
+    return ALIASES;
   }
 
   @Override
@@ -149,8 +195,9 @@ public class HelpCommand extends Command {
    * Sends a message to a private channel.
    *
    * @param args    arguments used to build the message.
+   * @param guildId guild the help was requested in, or 0; disabled modules are left out.
    */
-  private EmbedBuilder buildEmbed(String[] args) {
+  private EmbedBuilder buildEmbed(String[] args, long guildId) {
     if (args.length < 2) {
       AridCore.getLog().info("Creating Modules Supported embed.", OperationStage.COMMAND_CALL);
       EmbedBuilder embed = new EmbedBuilder().setTitle("Modules Supported").setColor(Color.RED);
@@ -159,8 +206,9 @@ public class HelpCommand extends Command {
       // For each Module, add its values to embed.
       for (Module m : modules) {
         AridCore.getLog().debug("Adding module: " + m, OperationStage.COMMAND_CALL);
-        if (commandsInModule(m) > 0) {
-          embed.addField(m.getName(), commandsInModule(m) + " commands active", true);
+        int active = commandsInModule(m, guildId);
+        if (active > 0) {
+          embed.addField(m.getName(), active + " commands active", true);
         }
       }
 
@@ -174,7 +222,8 @@ public class HelpCommand extends Command {
       String command = args[1].toLowerCase();
       // Check each command. If it is the command searched for, build embed.
       for (Command c : commands.values()) {
-        if (c.getAliases().contains(command)) {
+        if (c.getAliases().contains(command)
+            && AridCore.getCommandDispatcher().isEnabled(c.getModule(), guildId)) {
           // Define values.
           addCommandValues(embed, c);
 
@@ -187,7 +236,7 @@ public class HelpCommand extends Command {
       boolean hasCommand = false;
       for (Module module : modules) {
         if (module.getName().toLowerCase().contains(command)) {
-          List<Command> commandsInModule = getCommandsInModule(module);
+          List<Command> commandsInModule = getCommandsInModule(module, guildId);
           for (Command c : commandsInModule) {
             // Define values.
             embed.addField(c.getName(), "", false);
@@ -242,11 +291,15 @@ public class HelpCommand extends Command {
   /**
    * Returns a list of Commands within a given module.
    *
-   * @param module Module to search in
+   * @param module  Module to search in
+   * @param guildId guild to check the Module is enabled in, or 0
    * @return List of commands
    */
-  private List<Command> getCommandsInModule(Module module) {
+  private List<Command> getCommandsInModule(Module module, long guildId) {
     List<Command> activeCommands = new ArrayList<>();
+    if (!AridCore.getCommandDispatcher().isEnabled(module, guildId)) {
+      return activeCommands;
+    }
     AridCore.getLog()
         .debug("Retrieving commands in module " + module, OperationStage.COMMAND_CALL);
 
@@ -265,13 +318,49 @@ public class HelpCommand extends Command {
     return activeCommands;
   }
 
+  /**
+   * Returns the Modules with commands active in a guild, in page order.
+   *
+   * @param guildId guild to check the Modules are enabled in, or 0
+   * @return List of Modules
+   */
+  private List<Module> getActiveModules(long guildId) {
+    List<Module> active = new ArrayList<>();
+    for (Module module : modules) {
+      if (commandsInModule(module, guildId) > 0) {
+        active.add(module);
+      }
+    }
+    return active;
+  }
+
+  /**
+   * Builds the buttons leading to the neighbouring pages.
+   *
+   * @param page    page shown, 0 for the list of Modules
+   * @param modules number of Module pages
+   * @param guildId guild the help was requested in, or 0
+   * @return previous and next buttons, disabled at either end
+   */
+  private List<Button> pageButtons(int page, int modules, long guildId) {
+    ComponentRouter router = AridCore.getComponentRouter();
+    return List.of(
+        Button.secondary(router.encode(PAGE_COMPONENT,
+                new ComponentState().writeInt(page - 1).writeLong(guildId)), "Previous")
+            .withDisabled(page == 0),
+        Button.secondary(router.encode(PAGE_COMPONENT,
+                new ComponentState().writeInt(page + 1).writeLong(guildId)), "Next")
+            .withDisabled(page >= modules));
+  }
+
   /**
    * Returns the number of commands in a module.
    *
-   * @param module Module to search in
+   * @param module  Module to search in
+   * @param guildId guild to check the Module is enabled in, or 0
    * @return Number of commands in Module
    */
-  private int commandsInModule(Module module) {
-    return getCommandsInModule(module).size();
+  private int commandsInModule(Module module, long guildId) {
+    return getCommandsInModule(module, guildId).size();
   }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.InternalLogger;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+
+/**
+ * InteractionDeadlines class of the AridCore project.
+ * Acknowledges interactions that their command has not answered in time.
+ *
+ * <p>Discord expects an interaction to be acknowledged within 3 seconds of its creation.
+ * When a Slash Command arrives, a timer is started for the command's budget, counted from
+ * the interaction's creation so gateway and queueing delays are included. If the interaction
+ * is still unacknowledged when it fires, a reply is deferred and counted as
+ * <code>command.&lt;name&gt;.deferred</code>. Replies should then be sent through the hook;
+ * {@link com.aridstraea.aridcore.utilities.MessageUtilities#reply} does so automatically.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class InteractionDeadlines {
+
+  private final AridCore core;
+  private final CoreMetrics metrics;
+  private ScheduledThreadPoolExecutor timer;
+  private long defaultBudget = 1500;
+
+  /**
+   * Creates new InteractionDeadlines.
+   *
+   * @param core    Bot the interactions belong to
+   * @param metrics metrics to count deferrals in
+   */
+  public InteractionDeadlines(AridCore core, CoreMetrics metrics) {
+    this.core = core;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sets the budget of commands that do not declare their own.
+   *
+   * @param budget milliseconds before an unanswered interaction is deferred, 0 to never defer
+   * @return InteractionDeadlines instance
+   */
+  public synchronized InteractionDeadlines setDefaultBudget(long budget) {
+    this.defaultBudget = Math.max(0, budget);
+    return this;
+  }
+
+  /**
+   * Starts the deadline timer of an interaction.
+   *
+   * @param command command the interaction is for
+   * @param event   interaction to watch
+   */
+  public void watch(Command command, IReplyCallback event) {
+    long budget = command.deferBudget < 0 ? defaultBudget : command.deferBudget;
+    String metric = "command." + command.getSlashName();
+    metrics.increment(metric + ".interactions");
+    if (budget == 0) {
+      return;
+    }
+
+    // Count from the interaction's creation, clamped in case the clocks disagree.
+    long elapsed = Duration.between(event.getTimeCreated(), OffsetDateTime.now()).toMillis();
+    long delay = Math.max(0, Math.min(budget, budget - elapsed));
+    getTimer().schedule(() -> {
+      if (!event.isAcknowledged()) {
+        // Callbacks run on JDA's callback pool, which may not be bound to this Bot.
+        InternalLogger log = AridCore.getLog();
+        event.deferReply().queue(hook -> {
+          metrics.increment(metric + ".deferred");
+          log.debug("Deferred /" + command.getSlashName() + " after " + budget
+              + "ms.", OperationStage.COMMAND_CALL);
+        }, failure -> {
+          // The command replied in the meantime.
+        });
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the timer; interactions not yet deferred are left to their command.
+   */
+  public synchronized void shutdown() {
+    if (timer != null) {
+      timer.shutdownNow();
+      timer = null;
+    }
+  }
+
+  private synchronized ScheduledThreadPoolExecutor getTimer() {
+    if (timer == null) {
+      timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(core.bind(runnable), "AridCore-InteractionDeadlines");
+        thread.setDaemon(true);
+        return thread;
+      });
+      timer.setRemoveOnCancelPolicy(true);
+    }
+    return timer;
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * PermissionManager class of the AridCore project.
+ * Decides who may use a traditional command.
+ *
+ * <p>In order, a user may use a command if they are:
+ * <ol>
+ *   <li>the owner of the Bot,</li>
+ *   <li>granted the command through one of their roles, or</li>
+ *   <li>the command is allowed by default and they are the owner or an administrator of the
+ *   guild, or hold its {@link Command#getRequiredPermissions() required permissions}.</li>
+ * </ol>
+ * Commands not allowed by default can only be used by the owner of the Bot and roles granted
+ * them.
+ * Role grants are compiled per guild into bitsets, so a check only walks the member's roles
+ * once, combining their permissions and grants with a few long operations.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class PermissionManager {
+
+  private static final long ADMINISTRATOR = Permission.ADMINISTRATOR.getRawValue();
+
+  private volatile long ownerId;
+  private final Map<Long, GuildPermissions> guilds = new ConcurrentHashMap<>();
+
+  /**
+   * Sets the owner of the Bot, who may use every command.
+   *
+   * @param ownerId user ID of the owner
+   * @return PermissionManager instance
+   */
+  public PermissionManager setOwnerId(long ownerId) {
+    this.ownerId = ownerId;
+    return this;
+  }
+
+  /**
+   * Sets the owner of the Bot from its configured ID.
+   *
+   * @param ownerId user ID of the owner
+   * @return PermissionManager instance
+   */
+  public PermissionManager setOwnerId(String ownerId) {
+    try {
+      return setOwnerId(Long.parseLong(ownerId.trim()));
+    } catch (NumberFormatException nfe) {
+      AridCore.getLog().warning("Owner ID \"" + ownerId + "\" is not a valid ID; no user is "
+          + "treated as the owner.", OperationStage.CONFIGURATION);
+      return setOwnerId(0L);
+    }
+  }
+
+  public boolean isOwner(long userId) {
+    return userId != 0 && userId == ownerId;
+  }
+
+  /**
+   * Lets a role use a command in a guild, even if the command is not allowed by default.
+   *
+   * @param guildId ID of the guild
+   * @param roleId  ID of the role; the guild ID is the @everyone role
+   * @param command command to grant
+   * @return PermissionManager instance
+   */
+  public PermissionManager grantRole(long guildId, long roleId, Command command) {
+    guilds.compute(guildId, (id, rules) ->
+        (rules == null ? GuildPermissions.EMPTY : rules).with(roleId, command.permissionNode,
+            true));
+    return this;
+  }
+
+  /**
+   * Removes a grant made by {@link #grantRole(long, long, Command)}.
+   *
+   * @param guildId ID of the guild
+   * @param roleId  ID of the role
+   * @param command command to revoke
+   * @return PermissionManager instance
+   */
+  public PermissionManager revokeRole(long guildId, long roleId, Command command) {
+    guilds.computeIfPresent(guildId, (id, rules) -> {
+      GuildPermissions updated = rules.with(roleId, command.permissionNode, false);
+      return updated.isEmpty() ? null : updated;
+    });
+    return this;
+  }
+
+  /**
+   * Removes every grant of a role, e.g. once it was deleted.
+   *
+   * @param guildId ID of the guild
+   * @param roleId  ID of the role
+   * @return PermissionManager instance
+   */
+  public PermissionManager removeRole(long guildId, long roleId) {
+    guilds.computeIfPresent(guildId, (id, rules) -> {
+      GuildPermissions updated = rules.withoutRole(roleId);
+      return updated.isEmpty() ? null : updated;
+    });
+    return this;
+  }
+
+  /**
+   * Removes every grant in a guild.
+   *
+   * @param guildId ID of the guild
+   * @return PermissionManager instance
+   */
+  public PermissionManager clearGuild(long guildId) {
+    guilds.remove(guildId);
+    return this;
+  }
+
+  /**
+   * Determines if a user may use a command.
+   *
+   * @param command command to use
+   * @param user    user calling the command
+   * @param member  member calling the command, or null outside of guilds
+   * @return true if allowed, false if not
+   */
+  public boolean canUse(Command command, User user, Member member) {
+    if (isOwner(user.getIdLong())) {
+      return true;
+    }
+    long required = command.requiredPermissions;
+    if (member == null) {
+      return command.getDefaultPermission() && required == 0;
+    }
+    Guild guild = member.getGuild();
+    GuildPermissions rules = guilds.get(guild.getIdLong());
+    int node = command.permissionNode;
+    long permissions = guild.getPublicRole().getPermissionsRaw();
+    boolean granted = rules != null && rules.grants(guild.getIdLong(), node);
+    for (Role role : member.getRoles()) {
+      permissions |= role.getPermissionsRaw();
+      granted = granted || rules != null && rules.grants(role.getIdLong(), node);
+    }
+
+    if (granted) {
+      return true;
+    }
+    if (!command.getDefaultPermission()) {
+      // Commands not allowed by default stay with the Bot owner unless granted.
+      return false;
+    }
+    return member.isOwner() || (permissions & ADMINISTRATOR) != 0
+        || (permissions & required) == required;
+  }
+}
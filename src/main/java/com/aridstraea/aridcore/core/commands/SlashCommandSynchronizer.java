@@ -0,0 +1,321 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.threads.RestPriority;
+import com.aridstraea.aridcore.utilities.FileUtilities;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.data.SerializableData;
+import org.json.JSONObject;
+
+/**
+ * SlashCommandSynchronizer class of the AridCore project.
+ * Registers slash commands without replacing the whole list on every boot.
+ *
+ * <p>The serialized {@link CommandData} set of each scope (global or a guild) is hashed and
+ * compared with the hash of the last successful registration, kept in a local file. If they
+ * match, no request is made. Otherwise the registered commands are retrieved and only the
+ * commands that were added or changed are upserted, and only removed ones are deleted.
+ * Hashes of a {@link BulkCommandRegistrar} run are written once, when it is done.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class SlashCommandSynchronizer {
+
+  private static final String DISABLED = "none";
+  private static final Map<String, String> DEFAULTS = Map.of("required", "false",
+      "autocomplete", "false", "nsfw", "false", "dm_permission", "true");
+
+  private final String fileName;
+  private final Map<String, String> hashes = new HashMap<>();
+  private boolean dirty = false;
+
+  /**
+   * Creates a new SlashCommandSynchronizer.
+   *
+   * @param fileName file the registered hashes are kept in, or "none" to only compare against
+   *                 the commands retrieved from Discord
+   */
+  public SlashCommandSynchronizer(String fileName) {
+    this.fileName = fileName == null || fileName.isBlank() ? DISABLED : fileName;
+    loadHashes();
+  }
+
+  /**
+   * Synchronizes the global slash commands of the Bot.
+   *
+   * @param api      JDA instance of the Bot
+   * @param commands commands that should be registered
+   * @return future completing with the result of the synchronization
+   */
+  public CompletableFuture<Result> synchronize(JDA api, List<CommandData> commands) {
+    return synchronize(api.getSelfUser().getId() + ":global", commands,
+        api::retrieveCommands, api::upsertCommand, api::deleteCommandById, true);
+  }
+
+  /**
+   * Synchronizes the slash commands of a guild.
+   *
+   * @param guild    guild to register the commands in
+   * @param commands commands that should be registered
+   * @return future completing with the result of the synchronization
+   */
+  public CompletableFuture<Result> synchronize(Guild guild, List<CommandData> commands) {
+    return synchronize(guild, commands, true);
+  }
+
+  /**
+   * Synchronizes the slash commands of a guild.
+   *
+   * @param guild    guild to register the commands in
+   * @param commands commands that should be registered
+   * @param persist  true to write the hash file now, false to leave it to {@link #flush()}
+   * @return future completing with the result of the synchronization
+   */
+  CompletableFuture<Result> synchronize(Guild guild, List<CommandData> commands,
+      boolean persist) {
+    return synchronize(guild.getJDA().getSelfUser().getId() + ":" + guild.getId(), commands,
+        guild::retrieveCommands, guild::upsertCommand, guild::deleteCommandById, persist);
+  }
+
+  /**
+   * Writes hashes of synchronizations that were not persisted yet to the hash file.
+   */
+  public synchronized void flush() {
+    if (dirty && !fileName.equals(DISABLED)) {
+      FileUtilities.writeToFile(new JSONObject(hashes), fileName);
+    }
+    dirty = false;
+  }
+
+  /**
+   * Computes the hash of a set of commands, independent of their order.
+   *
+   * @param commands commands to hash
+   * @return hex-encoded SHA-256 hash
+   */
+  public static String hash(Collection<CommandData> commands) {
+    Map<String, Object> sorted = new TreeMap<>();
+    for (CommandData command : commands) {
+      sorted.put(key(command), canonicalize(command));
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(sorted.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException nsae) {
+      // Every JVM is required to support SHA-256.
+      throw new IllegalStateException(nsae);
+    }
+  }
+
+  private CompletableFuture<Result> synchronize(String scope, List<CommandData> commands,
+      Supplier<RestAction<List<Command>>> retrieve,
+      Function<CommandData, RestAction<Command>> upsert,
+      Function<String, RestAction<Void>> delete, boolean persist) {
+    String hash = hash(commands);
+    if (hash.equals(getHash(scope))) {
+      return CompletableFuture.completedFuture(new Result(scope, 0, 0, true));
+    }
+
+    return RestPriority.BACKGROUND.submit(retrieve.get()).thenCompose(registered -> {
+      Map<String, Command> existing = new HashMap<>();
+      for (Command command : registered) {
+        existing.put(key(command.getType(), command.getName()), command);
+      }
+
+      List<CompletableFuture<?>> requests = new ArrayList<>();
+      int upserted = 0;
+      for (CommandData command : commands) {
+        Command current = existing.remove(key(command));
+        if (current == null || !normalize(CommandData.fromCommand(current))
+            .equals(normalize(command))) {
+          requests.add(RestPriority.BACKGROUND.submit(upsert.apply(command)));
+          upserted++;
+        }
+      }
+      for (Command removed : existing.values()) {
+        requests.add(RestPriority.BACKGROUND.submit(delete.apply(removed.getId())));
+      }
+
+      Result result = new Result(scope, upserted, existing.size(), false);
+      return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]))
+          .thenApply(v -> {
+            putHash(scope, hash, persist);
+            return result;
+          });
+    });
+  }
+
+  private synchronized String getHash(String scope) {
+    return hashes.get(scope);
+  }
+
+  private synchronized void putHash(String scope, String hash, boolean persist) {
+    hashes.put(scope, hash);
+    dirty = true;
+    if (persist) {
+      flush();
+    }
+  }
+
+  private synchronized void loadHashes() {
+    if (fileName.equals(DISABLED) || !FileUtilities.checkIfFileExists(fileName)) {
+      return;
+    }
+    JSONObject object = FileUtilities.getJsonFileObject(fileName);
+    if (object == null) {
+      return;
+    }
+    for (String scope : object.keySet()) {
+      hashes.put(scope, object.optString(scope));
+    }
+    AridCore.getLog().debug("Loaded " + hashes.size() + " slash command hash(es).",
+        OperationStage.INIT);
+  }
+
+  private static String key(CommandData command) {
+    return key(command.getType(), command.getName());
+  }
+
+  private static String key(Command.Type type, String name) {
+    return type.name() + ":" + name;
+  }
+
+  /**
+   * Converts a command into its canonical form. Both local and registered commands are parsed
+   * and serialized by JDA again, so fields it fills in on either side are present on both.
+   *
+   * @param command command to convert
+   * @return canonical form of the command
+   */
+  private static Object normalize(CommandData command) {
+    return canonicalize(CommandData.fromData(command.toData()));
+  }
+
+  /**
+   * Converts serialized data into sorted maps & lists, so equal data has equal string forms.
+   * Values Discord treats as absent, such as empty localizations or default flags, are left out.
+   *
+   * @param value value to convert
+   * @return canonical form of the value
+   */
+  @SuppressWarnings("unchecked")
+  private static Object canonicalize(Object value) {
+    // DataObject and DataArray are SerializableData themselves, so they are checked first.
+    if (value instanceof DataObject) {
+      return canonicalize(((DataObject) value).toMap());
+    } else if (value instanceof DataArray) {
+      return canonicalize(((DataArray) value).toList());
+    } else if (value instanceof SerializableData) {
+      return canonicalize(((SerializableData) value).toData());
+    } else if (value instanceof Map) {
+      Map<String, Object> sorted = new TreeMap<>();
+      for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+        // Absent, null, empty and default values are the same to Discord.
+        Object canonical = entry.getValue() == null ? null : canonicalize(entry.getValue());
+        if (canonical != null && !isEmpty(canonical)
+            && !canonical.equals(DEFAULTS.get(entry.getKey()))) {
+          sorted.put(entry.getKey(), canonical);
+        }
+      }
+      return sorted;
+    } else if (value instanceof Collection) {
+      List<Object> list = new ArrayList<>();
+      for (Object element : (Collection<Object>) value) {
+        list.add(canonicalize(element));
+      }
+      return list;
+    }
+    return String.valueOf(value);
+  }
+
+  private static boolean isEmpty(Object canonical) {
+    return canonical instanceof Map && ((Map<?, ?>) canonical).isEmpty()
+        || canonical instanceof List && ((List<?>) canonical).isEmpty();
+  }
+
+  /**
+   * Result of a slash command synchronization.
+   */
+  public static final class Result {
+
+    private final String scope;
+    private final int upserted;
+    private final int deleted;
+    private final boolean unchanged;
+
+    private Result(String scope, int upserted, int deleted, boolean unchanged) {
+      this.scope = scope;
+      this.upserted = upserted;
+      this.deleted = deleted;
+      this.unchanged = unchanged;
+    }
+
+    public String getScope() {
+      return scope;
+    }
+
+    public int getUpserted() {
+      return upserted;
+    }
+
+    public int getDeleted() {
+      return deleted;
+    }
+
+    /**
+     * Retrieves if the commands matched the last registration, so no request was made.
+     *
+     * @return true if unchanged, false if not
+     */
+    public boolean isUnchanged() {
+      return unchanged;
+    }
+
+    @Override
+    public String toString() {
+      return unchanged ? scope + ": unchanged"
+          : scope + ": " + upserted + " upserted, " + deleted + " deleted";
+    }
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands.arguments;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ArgumentSchema class of the AridCore project.
+ * Compiled description of the arguments a command takes.
+ *
+ * <p>Built once per command, then used to parse messages in a single pass over their raw
+ * content. Mentions are read straight from their <code>&lt;@id&gt;</code> form, so no cache
+ * lookups are made while parsing.
+ *
+ * <pre>{@code
+ * ArgumentSchema.builder()
+ *     .required("target", ArgumentType.USER)
+ *     .optional("duration", ArgumentType.DURATION)
+ *     .rest("reason")
+ *     .build();
+ * }</pre>
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public final class ArgumentSchema {
+
+  private final String[] names;
+  private final ArgumentType[] types;
+  private final int required;
+  private final Map<String, Integer> indices;
+
+  private ArgumentSchema(Builder builder) {
+    this.names = builder.names.toArray(new String[0]);
+    this.types = builder.types.toArray(new ArgumentType[0]);
+    this.required = builder.required;
+    this.indices = new HashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      indices.put(names[i], i);
+    }
+  }
+
+  /**
+   * Creates a new Builder for a schema.
+   *
+   * @return new Builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public String getName(int index) {
+    return names[index];
+  }
+
+  public ArgumentType getType(int index) {
+    return types[index];
+  }
+
+  /**
+   * Retrieves the number of leading arguments that must be present.
+   *
+   * @return number of required arguments
+   */
+  public int getRequired() {
+    return required;
+  }
+
+  /**
+   * Retrieves the position of an argument.
+   *
+   * @param name name of the argument
+   * @return index of the argument
+   * @throws IllegalArgumentException if the schema has no such argument
+   */
+  public int indexOf(String name) {
+    Integer index = indices.get(name);
+    if (index == null) {
+      throw new IllegalArgumentException("No argument named " + name + ".");
+    }
+    return index;
+  }
+
+  /**
+   * Creates an empty view to parse into, which can be reused for later messages.
+   *
+   * @return new Arguments
+   */
+  public Arguments newArguments() {
+    return new Arguments(this);
+  }
+
+  /**
+   * Parses the arguments of a message.
+   *
+   * @param content raw content of the message
+   * @param from    index after the command alias
+   * @param out     view to parse into; its previous values are replaced
+   * @return true if parsed, false if not, with the reason in {@link Arguments#getError()}
+   */
+  public boolean parse(String content, int from, Arguments out) {
+    out.reset(content);
+    int pos = from;
+    int length = content.length();
+
+    for (int i = 0; i < types.length; i++) {
+      while (pos < length && Character.isWhitespace(content.charAt(pos))) {
+        pos++;
+      }
+      if (pos >= length) {
+        if (i < required) {
+          return out.fail("Missing argument <" + names[i] + ">.");
+        }
+        return true;
+      }
+
+      int start;
+      int end;
+      boolean escaped = false;
+      if (types[i] == ArgumentType.REST) {
+        start = pos;
+        end = length;
+        while (Character.isWhitespace(content.charAt(end - 1))) {
+          end--;
+        }
+        pos = length;
+      } else if (content.charAt(pos) == '"') {
+        start = pos + 1;
+        end = start;
+        while (end < length && content.charAt(end) != '"') {
+          if (content.charAt(end) == '\\' && end + 1 < length) {
+            escaped = true;
+            end++;
+          }
+          end++;
+        }
+        if (end >= length) {
+          return out.fail("Missing closing quote for <" + names[i] + ">.");
+        }
+        pos = end + 1;
+      } else {
+        start = pos;
+        while (pos < length && !Character.isWhitespace(content.charAt(pos))) {
+          pos++;
+        }
+        end = pos;
+      }
+
+      if (!convert(types[i], content, start, end, i, out)) {
+        return out.fail("Expected " + types[i].getDescription() + " for <" + names[i]
+            + ">, got \"" + content.substring(start, end) + "\".");
+      }
+      out.set(i, start, end, escaped);
+    }
+    return true;
+  }
+
+  private static boolean convert(ArgumentType type, String content, int start, int end,
+      int index, Arguments out) {
+    try {
+      switch (type) {
+        case INTEGER:
+          out.setLong(index, Long.parseLong(content, start, end, 10));
+          return true;
+        case NUMBER:
+          out.setDouble(index, Double.parseDouble(content.substring(start, end)));
+          return true;
+        case BOOLEAN:
+          return parseBoolean(content, start, end, index, out);
+        case DURATION:
+          return parseDuration(content, start, end, index, out);
+        case USER:
+          return parseMention(content, start, end, "@", "@!", index, out);
+        case CHANNEL:
+          return parseMention(content, start, end, "#", null, index, out);
+        case ROLE:
+          return parseMention(content, start, end, "@&", null, index, out);
+        default:
+          return true;
+      }
+    } catch (NumberFormatException nfe) {
+      return false;
+    }
+  }
+
+  private static boolean parseBoolean(String content, int start, int end, int index,
+      Arguments out) {
+    int length = end - start;
+    if (matches(content, start, length, "true") || matches(content, start, length, "yes")
+        || matches(content, start, length, "on")) {
+      out.setLong(index, 1);
+      return true;
+    } else if (matches(content, start, length, "false") || matches(content, start, length, "no")
+        || matches(content, start, length, "off")) {
+      out.setLong(index, 0);
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean matches(String content, int start, int length, String word) {
+    return length == word.length() && content.regionMatches(true, start, word, 0, length);
+  }
+
+  /**
+   * Reads a mention (<code>&lt;@id&gt;</code>, <code>&lt;#id&gt;</code>, ...) or a plain ID.
+   */
+  private static boolean parseMention(String content, int start, int end, String prefix,
+      String altPrefix, int index, Arguments out) {
+    int from = start;
+    int to = end;
+    if (content.charAt(start) == '<') {
+      if (content.charAt(end - 1) != '>') {
+        return false;
+      }
+      // Check the longer prefix first, so "<@!" is not read as "<@" followed by "!".
+      if (altPrefix != null && content.startsWith(altPrefix, start + 1)) {
+        from = start + 1 + altPrefix.length();
+      } else if (content.startsWith(prefix, start + 1)) {
+        from = start + 1 + prefix.length();
+      } else {
+        return false;
+      }
+      to = end - 1;
+    }
+    if (from >= to || !Character.isDigit(content.charAt(from))) {
+      return false;
+    }
+    out.setLong(index, Long.parseLong(content, from, to, 10));
+    return true;
+  }
+
+  /**
+   * Reads a duration made of number and unit pairs (ms, s, m, h, d, w) into milliseconds.
+   */
+  private static boolean parseDuration(String content, int start, int end, int index,
+      Arguments out) {
+    long total = 0;
+    int pos = start;
+    while (pos < end) {
+      int digits = pos;
+      while (pos < end && Character.isDigit(content.charAt(pos))) {
+        pos++;
+      }
+      if (digits == pos) {
+        return false;
+      }
+      long value = Long.parseLong(content, digits, pos, 10);
+      int unit = pos;
+      while (pos < end && Character.isLetter(content.charAt(pos))) {
+        pos++;
+      }
+      long multiplier = getUnitMillis(content, unit, pos);
+      if (multiplier < 0) {
+        return false;
+      }
+      try {
+        total = Math.addExact(total, Math.multiplyExact(value, multiplier));
+      } catch (ArithmeticException ae) {
+        return false;
+      }
+    }
+    out.setLong(index, total);
+    return true;
+  }
+
+  private static long getUnitMillis(String content, int start, int end) {
+    int length = end - start;
+    if (length == 0 || matches(content, start, length, "s")) {
+      return 1000L;
+    } else if (matches(content, start, length, "ms")) {
+      return 1L;
+    } else if (matches(content, start, length, "m")) {
+      return 60_000L;
+    } else if (matches(content, start, length, "h")) {
+      return 3_600_000L;
+    } else if (matches(content, start, length, "d")) {
+      return 86_400_000L;
+    } else if (matches(content, start, length, "w")) {
+      return 604_800_000L;
+    }
+    return -1;
+  }
+
+  /**
+   * Builder for an ArgumentSchema.
+   */
+  public static final class Builder {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<ArgumentType> types = new ArrayList<>();
+    private int required = 0;
+
+    private Builder() {
+    }
+
+    /**
+     * Adds an argument that must be present.
+     *
+     * @param name name of the argument
+     * @param type type of the argument
+     * @return Builder instance
+     */
+    public Builder required(String name, ArgumentType type) {
+      if (required != names.size()) {
+        throw new IllegalStateException(
+            "Required argument " + name + " cannot follow optional arguments.");
+      }
+      add(name, type);
+      required++;
+      return this;
+    }
+
+    /**
+     * Adds an argument that may be left out.
+     *
+     * @param name name of the argument
+     * @param type type of the argument
+     * @return Builder instance
+     */
+    public Builder optional(String name, ArgumentType type) {
+      add(name, type);
+      return this;
+    }
+
+    /**
+     * Adds an optional argument holding the rest of the message.
+     *
+     * @param name name of the argument
+     * @return Builder instance
+     */
+    public Builder rest(String name) {
+      return optional(name, ArgumentType.REST);
+    }
+
+    private void add(String name, ArgumentType type) {
+      if (!types.isEmpty() && types.get(types.size() - 1) == ArgumentType.REST) {
+        throw new IllegalStateException("No argument can follow the rest of the message.");
+      }
+      if (names.contains(name)) {
+        throw new IllegalStateException("Duplicate argument " + name + ".");
+      }
+      names.add(name);
+      types.add(type);
+    }
+
+    /**
+     * Compiles the schema.
+     *
+     * @return the ArgumentSchema
+     */
+    public ArgumentSchema build() {
+      return new ArgumentSchema(this);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands.arguments;
+
+/**
+ * ArgumentType enum of the AridCore project.
+ * Types a command argument can be parsed as.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public enum ArgumentType {
+  /** A single word, or several words in double quotes. */
+  STRING("a word or \"quoted text\""),
+  /** A whole number, read as a long. */
+  INTEGER("a whole number"),
+  /** A decimal number, read as a double. */
+  NUMBER("a number"),
+  /** true/false, yes/no or on/off. */
+  BOOLEAN("yes or no"),
+  /** A duration such as 90s, 1h30m or 2d; a plain number is read as seconds. */
+  DURATION("a duration like 1h30m"),
+  /** A user mention or ID, read as a long. */
+  USER("a user mention"),
+  /** A channel mention or ID, read as a long. */
+  CHANNEL("a channel mention"),
+  /** A role mention or ID, read as a long. */
+  ROLE("a role mention"),
+  /** The rest of the message. Can only be the last argument. */
+  REST("text");
+
+  private final String description;
+
+  ArgumentType(String description) {
+    this.description = description;
+  }
+
+  /**
+   * Retrieves what users are expected to enter, used in parse errors.
+   *
+   * @return description of the type
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Determines if the argument is held as a long.
+   *
+   * @return true if the value is a long, false if not
+   */
+  public boolean isLong() {
+    return this == INTEGER || this == DURATION || this == USER || this == CHANNEL
+        || this == ROLE;
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands.arguments;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Arguments class of the AridCore project.
+ * Typed view over the arguments of a message, parsed by an {@link ArgumentSchema}.
+ *
+ * <p>Values are kept as offsets into the raw content and primitive longs/doubles, so parsing
+ * does not create a String per argument. An instance is reused for later messages on the same
+ * thread; call {@link #copy()} to keep the values beyond the command call.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public final class Arguments {
+
+  private final ArgumentSchema schema;
+  private final int[] starts;
+  private final int[] ends;
+  private final long[] longs;
+  private final double[] doubles;
+  private final boolean[] escaped;
+  private String content;
+  private int present;
+  private String error;
+
+  Arguments(ArgumentSchema schema) {
+    this.schema = schema;
+    this.starts = new int[schema.size()];
+    this.ends = new int[schema.size()];
+    this.longs = new long[schema.size()];
+    this.doubles = new double[schema.size()];
+    this.escaped = new boolean[schema.size()];
+  }
+
+  void reset(String content) {
+    this.content = content;
+    this.present = 0;
+    this.error = null;
+  }
+
+  boolean fail(String error) {
+    this.error = error;
+    return false;
+  }
+
+  void set(int index, int start, int end, boolean escaped) {
+    this.starts[index] = start;
+    this.ends[index] = end;
+    this.escaped[index] = escaped;
+    this.present = index + 1;
+  }
+
+  void setLong(int index, long value) {
+    longs[index] = value;
+  }
+
+  void setDouble(int index, double value) {
+    doubles[index] = value;
+  }
+
+  public ArgumentSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Retrieves why the last parse failed.
+   *
+   * @return error message, or null if parsing succeeded
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Retrieves the number of arguments given; optional arguments may be missing.
+   *
+   * @return number of arguments present
+   */
+  public int size() {
+    return present;
+  }
+
+  public boolean has(int index) {
+    return index < present;
+  }
+
+  public boolean has(String name) {
+    return has(schema.indexOf(name));
+  }
+
+  /**
+   * Retrieves an argument as text, unquoted. Works for every type.
+   *
+   * @param index index of the argument
+   * @return text of the argument, or null if not present
+   */
+  public String getString(int index) {
+    if (!has(index)) {
+      return null;
+    }
+    String value = content.substring(starts[index], ends[index]);
+    if (escaped[index]) {
+      StringBuilder unescaped = new StringBuilder(value.length());
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '\\' && i + 1 < value.length()) {
+          c = value.charAt(++i);
+        }
+        unescaped.append(c);
+      }
+      return unescaped.toString();
+    }
+    return value;
+  }
+
+  public String getString(String name) {
+    return getString(schema.indexOf(name));
+  }
+
+  /**
+   * Retrieves an INTEGER, USER, CHANNEL or ROLE argument, or a DURATION in milliseconds.
+   *
+   * @param index        index of the argument
+   * @param defaultValue value if the argument is not present
+   * @return value of the argument
+   */
+  public long getLong(int index, long defaultValue) {
+    checkType(index, schema.getType(index).isLong());
+    return has(index) ? longs[index] : defaultValue;
+  }
+
+  public long getLong(String name, long defaultValue) {
+    return getLong(schema.indexOf(name), defaultValue);
+  }
+
+  public long getLong(String name) {
+    return getLong(schema.indexOf(name), 0L);
+  }
+
+  public double getDouble(int index, double defaultValue) {
+    checkType(index, schema.getType(index) == ArgumentType.NUMBER);
+    return has(index) ? doubles[index] : defaultValue;
+  }
+
+  public double getDouble(String name, double defaultValue) {
+    return getDouble(schema.indexOf(name), defaultValue);
+  }
+
+  public boolean getBoolean(int index, boolean defaultValue) {
+    checkType(index, schema.getType(index) == ArgumentType.BOOLEAN);
+    return has(index) ? longs[index] != 0 : defaultValue;
+  }
+
+  public boolean getBoolean(String name, boolean defaultValue) {
+    return getBoolean(schema.indexOf(name), defaultValue);
+  }
+
+  /**
+   * Retrieves a DURATION argument.
+   *
+   * @param name name of the argument
+   * @return the duration, or null if not present
+   */
+  public Duration getDuration(String name) {
+    int index = schema.indexOf(name);
+    checkType(index, schema.getType(index) == ArgumentType.DURATION);
+    return has(index) ? Duration.ofMillis(longs[index]) : null;
+  }
+
+  /**
+   * Creates an independent copy that is not overwritten by later messages.
+   *
+   * @return copy of the arguments
+   */
+  public Arguments copy() {
+    Arguments copy = new Arguments(schema);
+    copy.content = content;
+    copy.present = present;
+    copy.error = error;
+    System.arraycopy(starts, 0, copy.starts, 0, starts.length);
+    System.arraycopy(ends, 0, copy.ends, 0, ends.length);
+    System.arraycopy(longs, 0, copy.longs, 0, longs.length);
+    System.arraycopy(doubles, 0, copy.doubles, 0, doubles.length);
+    System.arraycopy(escaped, 0, copy.escaped, 0, escaped.length);
+    return copy;
+  }
+
+  private void checkType(int index, boolean matches) {
+    if (!matches) {
+      throw new IllegalArgumentException("Argument " + schema.getName(index) + " is of type "
+          + schema.getType(index) + ".");
+    }
+  }
+
+  @Override
+  public String toString() {
+    String[] values = new String[present];
+    for (int i = 0; i < present; i++) {
+      values[i] = schema.getName(i) + "=" + getString(i);
+    }
+    return error != null
+        ? "Arguments[error=" + error + "]" : "Arguments" + Arrays.toString(values);
+  }
+}
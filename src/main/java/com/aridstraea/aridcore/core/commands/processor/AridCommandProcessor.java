@@ -0,0 +1,255 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.commands.processor;
+
+import com.aridstraea.aridcore.core.commands.AridCommand;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * AridCommandProcessor class of the AridCore project.
+ * Generates a <code>&lt;ClassName&gt;_Metadata</code> class for every {@link AridCommand}.
+ *
+ * <p>The generated class keeps aliases, help text and slash command data in constants, so
+ * neither startup nor command dispatch has to compute or allocate them again. Invalid aliases
+ * and slash command descriptions are reported as compile errors rather than failing at
+ * registration.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+@SupportedAnnotationTypes("com.aridstraea.aridcore.core.commands.AridCommand")
+public class AridCommandProcessor extends AbstractProcessor {
+
+  private static final String ANNOTATED_COMMAND =
+      "com.aridstraea.aridcore.core.commands.AnnotatedCommand";
+  private static final String SUFFIX = "_Metadata";
+  private static final Pattern SLASH_NAME = Pattern.compile("^[-_\\p{L}\\p{N}]{1,32}$");
+  private static final int MAX_DESCRIPTION = 100;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+    for (Element element : round.getElementsAnnotatedWith(AridCommand.class)) {
+      if (element.getKind() != ElementKind.CLASS) {
+        error(element, "@AridCommand can only be used on classes.");
+        continue;
+      }
+      TypeElement type = (TypeElement) element;
+      if (validate(type)) {
+        generate(type);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks the annotated class and its values, reporting every problem found.
+   *
+   * @param type annotated class
+   * @return true if the metadata can be generated, false if not
+   */
+  private boolean validate(TypeElement type) {
+    boolean valid = true;
+    TypeElement base = processingEnv.getElementUtils().getTypeElement(ANNOTATED_COMMAND);
+    TypeMirror erasure = processingEnv.getTypeUtils().erasure(base.asType());
+    if (!processingEnv.getTypeUtils().isAssignable(type.asType(), erasure)) {
+      error(type, "@AridCommand classes must extend AnnotatedCommand.");
+      valid = false;
+    }
+
+    AridCommand command = type.getAnnotation(AridCommand.class);
+    if (command.aliases().length == 0) {
+      error(type, "@AridCommand requires at least one alias.");
+      return false;
+    }
+    for (String alias : command.aliases()) {
+      if (alias.isEmpty() || !alias.equals(alias.trim()) || alias.contains(" ")) {
+        error(type, "Alias \"" + alias + "\" must not be empty or contain spaces.");
+        valid = false;
+      }
+    }
+    String slashName = command.aliases()[0];
+    if (!SLASH_NAME.matcher(slashName).matches() || !slashName.equals(slashName.toLowerCase())) {
+      error(type, "The first alias \"" + slashName + "\" is not a valid Slash Command name; "
+          + "it must be 1-32 lowercase letters, digits, '-' or '_'.");
+      valid = false;
+    }
+    if (getSlashDescription(command).length() > MAX_DESCRIPTION) {
+      error(type, "Slash Command descriptions are limited to " + MAX_DESCRIPTION
+          + " characters.");
+      valid = false;
+    }
+    return valid;
+  }
+
+  private void generate(TypeElement type) {
+    AridCommand command = type.getAnnotation(AridCommand.class);
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+    String packageName = packageElement.getQualifiedName().toString();
+    String className = getGeneratedName(type);
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+    try {
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+      try (PrintWriter out = new PrintWriter(file.openWriter())) {
+        if (!packageName.isEmpty()) {
+          out.println("package " + packageName + ";");
+          out.println();
+        }
+        out.println("import com.aridstraea.aridcore.core.commands.CommandMetadata;");
+        out.println("import com.aridstraea.aridcore.utilities.constants.Module;");
+        out.println("import java.util.List;");
+        out.println("import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;");
+        out.println("import net.dv8tion.jda.api.interactions.commands.build.CommandData;");
+        out.println("import net.dv8tion.jda.api.interactions.commands.build.Commands;");
+        out.println();
+        out.println("/**");
+        out.println(" * Metadata of {@link " + type.getQualifiedName() + "}.");
+        out.println(" * Generated from its @AridCommand annotation; do not edit.");
+        out.println(" */");
+        out.println("@javax.annotation.processing.Generated(\""
+            + AridCommandProcessor.class.getName() + "\")");
+        out.println("public final class " + className + " implements CommandMetadata {");
+        out.println();
+        out.println("  public static final List<String> ALIASES = " + list(command.aliases())
+            + ";");
+        out.println("  public static final Module MODULE = Module." + command.module().name()
+            + ";");
+        out.println("  public static final String NAME = " + literal(getName(command)) + ";");
+        out.println("  public static final String DESCRIPTION = "
+            + literal(command.description()) + ";");
+        out.println("  public static final List<String> USAGE = " + list(command.usage())
+            + ";");
+        out.println("  public static final boolean DEFAULT_PERMISSION = "
+            + command.defaultPermission() + ";");
+        out.println("  public static final String SLASH_NAME = "
+            + literal(command.aliases()[0]) + ";");
+        out.println("  public static final String SLASH_DESCRIPTION = "
+            + literal(getSlashDescription(command)) + ";");
+        out.println();
+        out.println("  public static final " + className + " INSTANCE = new " + className
+            + "();");
+        out.println();
+        out.println("  private " + className + "() {");
+        out.println("  }");
+        getter(out, "List<String>", "getAliases", "ALIASES");
+        getter(out, "Module", "getModule", "MODULE");
+        getter(out, "String", "getName", "NAME");
+        getter(out, "String", "getDescription", "DESCRIPTION");
+        getter(out, "List<String>", "getUsage", "USAGE");
+        getter(out, "boolean", "getDefaultPermission", "DEFAULT_PERMISSION");
+        getter(out, "String", "getSlashName", "SLASH_NAME");
+        getter(out, "CommandData", "createSlashCommandData",
+            "Commands.slash(SLASH_NAME, SLASH_DESCRIPTION)\n"
+                + "        .setDefaultPermissions(DEFAULT_PERMISSION\n"
+                + "            ? DefaultMemberPermissions.ENABLED : DefaultMemberPermissions.DISABLED)");
+        out.println("}");
+      }
+    } catch (IOException ioe) {
+      error(type, "Could not generate " + qualifiedName + ": " + ioe.getMessage());
+    }
+  }
+
+  private static void getter(PrintWriter out, String type, String method, String value) {
+    out.println();
+    out.println("  @Override");
+    out.println("  public " + type + " " + method + "() {");
+    out.println("    return " + value + ";");
+    out.println("  }");
+  }
+
+  /**
+   * Retrieves the generated class name; nested classes are prefixed with their outer classes.
+   *
+   * @param type annotated class
+   * @return simple name of the generated class
+   */
+  private static String getGeneratedName(TypeElement type) {
+    StringBuilder name = new StringBuilder(type.getSimpleName());
+    Element enclosing = type.getEnclosingElement();
+    while (enclosing instanceof TypeElement) {
+      name.insert(0, enclosing.getSimpleName() + "_");
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return name.append(SUFFIX).toString();
+  }
+
+  private static String getName(AridCommand command) {
+    return command.name().isEmpty() ? command.aliases()[0] : command.name();
+  }
+
+  /**
+   * Slash Commands require a description, so the name stands in for a missing one.
+   *
+   * @param command annotation values
+   * @return description of the Slash Command
+   */
+  private static String getSlashDescription(AridCommand command) {
+    return command.description().isEmpty() ? getName(command) : command.description();
+  }
+
+  private static String list(String[] values) {
+    StringBuilder list = new StringBuilder("List.of(");
+    for (int i = 0; i < values.length; i++) {
+      list.append(i == 0 ? "" : ", ").append(literal(values[i]));
+    }
+    return list.append(")").toString();
+  }
+
+  private static String literal(String value) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        literal.append('\\').append(c);
+      } else if (c == '\n') {
+        literal.append("\\n");
+      } else if (c < 0x20) {
+        // Octal, as unicode escapes of line terminators would end the literal.
+        literal.append(String.format("\\%03o", (int) c));
+      } else if (c > 0x7e) {
+        literal.append(String.format("\\u%04x", (int) c));
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.append('"').toString();
+  }
+
+  private void error(Element element, String message) {
+    Messager messager = processingEnv.getMessager();
+    messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.events;
+
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventDeduplicator class of the AridCore project.
+ * Remembers recently handled message & interaction IDs, so events replayed after a gateway
+ * resume or reconnect are not handled twice.
+ *
+ * <p>IDs are kept in a ring of open-addressing long tables, each covering an equal slice of
+ * the window. A slice is cleared when the ring comes back around to it, so memory is fixed
+ * at configuration and every lookup probes a constant number of tables. Once a slice is
+ * full, further IDs are let through unrecorded and counted as
+ * <code>events.dedup.overflow</code>; dropped duplicates are counted as
+ * <code>events.duplicates</code>.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class EventDeduplicator {
+
+  private static final int SLICES = 8;
+  private static final long EMPTY = 0;
+
+  private final CoreMetrics metrics;
+  private long[][] tables;
+  private final long[] epochs = new long[SLICES];
+  private final int[] sizes = new int[SLICES];
+  private long sliceNanos;
+  private int limit;
+  private int mask;
+
+  /**
+   * Creates a new, disabled EventDeduplicator.
+   *
+   * @param metrics metrics to count duplicates in
+   */
+  public EventDeduplicator(CoreMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sizes the deduplicator, forgetting every ID seen so far.
+   *
+   * @param window   milliseconds an ID is remembered for at least, 0 to disable
+   * @param capacity IDs remembered per window, at an even rate
+   * @return EventDeduplicator instance
+   */
+  public synchronized EventDeduplicator configure(long window, int capacity) {
+    if (window <= 0 || capacity <= 0) {
+      tables = null;
+      return this;
+    }
+    // The current slice is partly filled, so the others must cover the whole window.
+    sliceNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(window) / (SLICES - 1));
+    // Slices take twice their share, so bursts are absorbed.
+    limit = Math.max(1, (int) Math.min(Integer.MAX_VALUE / 4, 2L * capacity / (SLICES - 1)));
+    int size = Integer.highestOneBit(Math.max(2, limit * 2 - 1)) << 1;
+    mask = size - 1;
+    tables = new long[SLICES][size];
+    long epoch = System.nanoTime() / sliceNanos;
+    for (int i = 0; i < SLICES; i++) {
+      epochs[i] = epoch - SLICES;
+      sizes[i] = 0;
+    }
+    return this;
+  }
+
+  /**
+   * Records an ID, determining if it was seen within the window.
+   *
+   * @param id snowflake ID of the message or interaction
+   * @return true if the event is new, false if it is a duplicate
+   */
+  public synchronized boolean firstSeen(long id) {
+    if (tables == null || id == EMPTY) {
+      return true;
+    }
+    long epoch = System.nanoTime() / sliceNanos;
+    int current = (int) Math.floorMod(epoch, (long) SLICES);
+    if (epochs[current] != epoch) {
+      Arrays.fill(tables[current], EMPTY);
+      sizes[current] = 0;
+      epochs[current] = epoch;
+    }
+
+    int start = slot(id);
+    for (int i = 0; i < SLICES; i++) {
+      if (epoch - epochs[i] < SLICES && contains(tables[i], start, id)) {
+        metrics.increment("events.duplicates");
+        return false;
+      }
+    }
+    if (sizes[current] >= limit) {
+      metrics.increment("events.dedup.overflow");
+      return true;
+    }
+    long[] table = tables[current];
+    int slot = start;
+    while (table[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = id;
+    sizes[current]++;
+    return true;
+  }
+
+  private boolean contains(long[] table, int slot, long id) {
+    // Tables are at most half full, so the probe always reaches an empty slot.
+    while (table[slot] != EMPTY) {
+      if (table[slot] == id) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  private int slot(long id) {
+    long hash = id * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.events;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.IEventManager;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+/**
+ * IndexedEventManager class of the AridCore project.
+ * An {@link IEventManager} that indexes handlers by event type when listeners are registered,
+ * so each event is only dispatched to the handlers that override a method for it.
+ * The handler methods of a {@link ListenerAdapter} are called directly, skipping its
+ * {@code onEvent} lookup.
+ *
+ * <p>Listeners handling every event ({@link EventListener}s that are not a
+ * {@link ListenerAdapter}, or overriding {@code onGenericEvent}) still receive every event
+ * through {@link EventListener#onEvent(GenericEvent)}. Registering the same listener twice,
+ * e.g. once per shard, has no effect. While an event is handled, its {@link AridCore} is
+ * the {@link AridCore#current()} instance.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class IndexedEventManager implements IEventManager {
+
+  private static final Handler[] NO_HANDLERS = new Handler[0];
+  private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class,
+      GenericEvent.class);
+
+  private final AridCore core;
+  private final List<Object> listeners = new CopyOnWriteArrayList<>();
+  private final List<Handler> handlers = new CopyOnWriteArrayList<>();
+  private volatile Map<Class<?>, Handler[]> dispatch = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new IndexedEventManager.
+   *
+   * @param core AridCore instance the events belong to
+   */
+  public IndexedEventManager(AridCore core) {
+    this.core = core;
+  }
+
+  @Override
+  public synchronized void register(Object listener) {
+    if (!(listener instanceof EventListener)) {
+      throw new IllegalArgumentException(
+          "Listener must implement EventListener: " + listener.getClass().getName());
+    }
+    for (Object registered : listeners) {
+      if (registered == listener) {
+        return;
+      }
+    }
+
+    listeners.add(listener);
+    handlers.addAll(createHandlers(listener));
+    dispatch = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public synchronized void unregister(Object listener) {
+    if (listeners.removeIf(registered -> registered == listener)) {
+      handlers.removeIf(handler -> handler.listener == listener);
+      dispatch = new ConcurrentHashMap<>();
+    }
+  }
+
+  @Override
+  public void handle(GenericEvent event) {
+    Map<Class<?>, Handler[]> index = dispatch;
+    Handler[] eventHandlers = index.get(event.getClass());
+    if (eventHandlers == null) {
+      eventHandlers = resolve(event.getClass());
+      index.putIfAbsent(event.getClass(), eventHandlers);
+    }
+
+    if (eventHandlers.length == 0) {
+      return;
+    }
+
+    AridCore previous = core.makeCurrent();
+    try {
+      for (Handler handler : eventHandlers) {
+        try {
+          handler.invoke(event);
+        } catch (Error e) {
+          throw e;
+        } catch (Throwable t) {
+          AridCore.getLog().error("One of the event listeners had an uncaught exception: "
+              + handler.listener.getClass().getName(), OperationStage.EVENT, (Exception) t);
+        }
+      }
+    } finally {
+      AridCore.restoreCurrent(previous);
+    }
+  }
+
+  @Override
+  public List<Object> getRegisteredListeners() {
+    return Collections.unmodifiableList(new ArrayList<>(listeners));
+  }
+
+  /**
+   * Retrieves the number of handlers an event type is dispatched to.
+   *
+   * @param eventType event type to check
+   * @return number of handlers
+   */
+  public int getHandlerCount(Class<? extends GenericEvent> eventType) {
+    return resolve(eventType).length;
+  }
+
+  /**
+   * Collects the handlers of every listener that can receive an event type.
+   * Per listener, catch-all handlers come first, then the most specific event type,
+   * as {@link ListenerAdapter} orders them.
+   *
+   * @param eventType event type to resolve
+   * @return handlers, in dispatch order
+   */
+  private Handler[] resolve(Class<?> eventType) {
+    List<Handler> resolved = new ArrayList<>();
+    for (Object listener : listeners) {
+      List<Handler> matching = new ArrayList<>();
+      for (Handler handler : handlers) {
+        if (handler.listener == listener && handler.eventType.isAssignableFrom(eventType)) {
+          matching.add(handler);
+        }
+      }
+      matching.sort((a, b) -> Integer.compare(b.depth, a.depth));
+      resolved.addAll(matching);
+    }
+    return resolved.isEmpty() ? NO_HANDLERS : resolved.toArray(NO_HANDLERS);
+  }
+
+  private static List<Handler> createHandlers(Object listener) {
+    Set<Class<? extends GenericEvent>> events = ListenerInspector.getHandledEvents(listener);
+    if (events.contains(GenericEvent.class)) {
+      return Collections.singletonList(new Handler(listener, GenericEvent.class, null));
+    }
+
+    List<Handler> created = new ArrayList<>();
+    for (Class<? extends GenericEvent> event : events) {
+      created.add(new Handler(listener, event, findHandler(listener, event)));
+    }
+    return created;
+  }
+
+  /**
+   * Finds the {@link ListenerAdapter} method for an event type, bound to the listener.
+   *
+   * @param listener  listener to bind to
+   * @param eventType event type handled
+   * @return bound method handle
+   */
+  private static MethodHandle findHandler(Object listener, Class<?> eventType) {
+    for (Method method : ListenerAdapter.class.getMethods()) {
+      if (method.getParameterCount() == 1 && method.getParameterTypes()[0] == eventType
+          && method.getName().startsWith("on")) {
+        try {
+          return MethodHandles.publicLookup().unreflect(method)
+              .bindTo(listener)
+              .asType(HANDLER_TYPE);
+        } catch (IllegalAccessException iae) {
+          throw new IllegalArgumentException("Unable to index handler " + method.getName()
+              + " of " + listener.getClass().getName(), iae);
+        }
+      }
+    }
+    throw new IllegalArgumentException("No handler for " + eventType.getSimpleName() + " in "
+        + listener.getClass().getName());
+  }
+
+  private static final class Handler {
+
+    private final Object listener;
+    private final Class<?> eventType;
+    private final MethodHandle method;
+    private final int depth;
+
+    private Handler(Object listener, Class<?> eventType, MethodHandle method) {
+      this.listener = listener;
+      this.eventType = eventType;
+      this.method = method;
+
+      int d = 0;
+      for (Class<?> c = eventType; c != null; c = c.getSuperclass()) {
+        d++;
+      }
+      this.depth = method == null ? Integer.MAX_VALUE : d;
+    }
+
+    private void invoke(GenericEvent event) throws Throwable {
+      if (method == null) {
+        ((EventListener) listener).onEvent(event);
+      } else {
+        method.invokeExact(event);
+      }
+    }
+  }
+}
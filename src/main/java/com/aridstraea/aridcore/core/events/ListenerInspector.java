@@ -0,0 +1,123 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.events;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+/**
+ * ListenerInspector class of the AridCore project.
+ * Determines which events a listener actually handles, by detecting which
+ * {@link ListenerAdapter} methods its class overrides. Results are cached per class.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public final class ListenerInspector {
+
+  private static final Map<Class<?>, Set<Class<? extends GenericEvent>>> handledEvents =
+      new ConcurrentHashMap<>();
+
+  private ListenerInspector() {
+  }
+
+  /**
+   * Retrieves the events handled by a listener.
+   *
+   * @param listener listener to inspect
+   * @return handled event types
+   * @see #getHandledEvents(Class)
+   */
+  public static Set<Class<? extends GenericEvent>> getHandledEvents(Object listener) {
+    return getHandledEvents(listener.getClass());
+  }
+
+  /**
+   * Retrieves the events handled by a listener class. If the class is not a
+   * {@link ListenerAdapter}, or overrides {@code onEvent} or {@code onGenericEvent},
+   * the result only contains {@link GenericEvent}, meaning every event is handled.
+   *
+   * @param listenerClass listener class to inspect
+   * @return handled event types
+   */
+  public static Set<Class<? extends GenericEvent>> getHandledEvents(Class<?> listenerClass) {
+    return handledEvents.computeIfAbsent(listenerClass, ListenerInspector::inspect);
+  }
+
+  /**
+   * Determines if a listener class handles every event.
+   *
+   * @param listenerClass listener class to inspect
+   * @return true if every event is handled, false if not
+   */
+  public static boolean handlesAllEvents(Class<?> listenerClass) {
+    return getHandledEvents(listenerClass).contains(GenericEvent.class);
+  }
+
+  private static Set<Class<? extends GenericEvent>> inspect(Class<?> listenerClass) {
+    if (!ListenerAdapter.class.isAssignableFrom(listenerClass)) {
+      return Collections.singleton(GenericEvent.class);
+    }
+
+    Set<Class<? extends GenericEvent>> events = new LinkedHashSet<>();
+    for (Class<?> c = listenerClass; c != ListenerAdapter.class; c = c.getSuperclass()) {
+      for (Method method : c.getDeclaredMethods()) {
+        Class<? extends GenericEvent> event = getOverriddenEvent(method);
+        if (event == null) {
+          continue;
+        }
+        if (event == GenericEvent.class || method.getName().equals("onGenericUpdate")) {
+          // Catch-all handlers; nothing can be skipped.
+          return Collections.singleton(GenericEvent.class);
+        }
+        events.add(event);
+      }
+    }
+    return Collections.unmodifiableSet(events);
+  }
+
+  /**
+   * Retrieves the event type of a method if it overrides a {@link ListenerAdapter} handler.
+   *
+   * @param method method to check
+   * @return event type, or null if the method is not a handler override
+   */
+  @SuppressWarnings("unchecked")
+  private static Class<? extends GenericEvent> getOverriddenEvent(Method method) {
+    if (method.isSynthetic() || method.isBridge() || Modifier.isStatic(method.getModifiers())
+        || method.getParameterCount() != 1 || !method.getName().startsWith("on")) {
+      return null;
+    }
+    Class<?> parameter = method.getParameterTypes()[0];
+    if (!GenericEvent.class.isAssignableFrom(parameter)) {
+      return null;
+    }
+    try {
+      ListenerAdapter.class.getMethod(method.getName(), parameter);
+      return (Class<? extends GenericEvent>) parameter;
+    } catch (NoSuchMethodException nsme) {
+      return null;
+    }
+  }
+}
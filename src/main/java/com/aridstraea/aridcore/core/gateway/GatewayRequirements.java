@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.gateway;
+
+import java.util.EnumSet;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+/**
+ * GatewayRequirements interface of the AridCore project.
+ * Lets a listener declare {@link GatewayIntent}s and {@link CacheFlag}s it needs
+ * which cannot be derived from the events it handles, such as message content.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public interface GatewayRequirements {
+
+  /**
+   * Gets the intents required in addition to those derived from handled events.
+   *
+   * @return required intents
+   */
+  default EnumSet<GatewayIntent> getRequiredIntents() {
+    return EnumSet.noneOf(GatewayIntent.class);
+  }
+
+  /**
+   * Gets the cache flags required in addition to those derived from handled events.
+   *
+   * @return required cache flags
+   */
+  default EnumSet<CacheFlag> getRequiredCacheFlags() {
+    return EnumSet.noneOf(CacheFlag.class);
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.gateway;
+
+import com.aridstraea.aridcore.core.events.ListenerInspector;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.forum.GenericForumTagEvent;
+import net.dv8tion.jda.api.events.emoji.GenericEmojiEvent;
+import net.dv8tion.jda.api.events.guild.override.GenericPermissionOverrideEvent;
+import net.dv8tion.jda.api.events.guild.scheduledevent.GenericScheduledEventGatewayEvent;
+import net.dv8tion.jda.api.events.guild.scheduledevent.update.GenericScheduledEventUpdateEvent;
+import net.dv8tion.jda.api.events.guild.voice.GenericGuildVoiceEvent;
+import net.dv8tion.jda.api.events.sticker.GenericGuildStickerEvent;
+import net.dv8tion.jda.api.events.user.UserActivityEndEvent;
+import net.dv8tion.jda.api.events.user.UserActivityStartEvent;
+import net.dv8tion.jda.api.events.user.update.UserUpdateActivitiesEvent;
+import net.dv8tion.jda.api.events.user.update.UserUpdateOnlineStatusEvent;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+/**
+ * IntentResolver class of the AridCore project.
+ * Computes the minimal set of {@link GatewayIntent}s and {@link CacheFlag}s
+ * from the listeners and commands registered with the Bot.
+ *
+ * <p>Listeners that handle every event (not a {@link net.dv8tion.jda.api.hooks.ListenerAdapter},
+ * or overriding {@code onGenericEvent}) fall back to the default, non-privileged intents and
+ * {@link GatewayIntent#MESSAGE_CONTENT}, as the Bot used before intents were derived.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class IntentResolver {
+
+  private static final Map<Class<? extends GenericEvent>, CacheFlag> eventCacheFlags =
+      new LinkedHashMap<>() {
+        {
+          put(GenericGuildVoiceEvent.class, CacheFlag.VOICE_STATE);
+          put(UserUpdateActivitiesEvent.class, CacheFlag.ACTIVITY);
+          put(UserActivityStartEvent.class, CacheFlag.ACTIVITY);
+          put(UserActivityEndEvent.class, CacheFlag.ACTIVITY);
+          put(UserUpdateOnlineStatusEvent.class, CacheFlag.ONLINE_STATUS);
+          put(GenericEmojiEvent.class, CacheFlag.EMOJI);
+          put(GenericGuildStickerEvent.class, CacheFlag.STICKER);
+          put(GenericScheduledEventGatewayEvent.class, CacheFlag.SCHEDULED_EVENTS);
+          put(GenericScheduledEventUpdateEvent.class, CacheFlag.SCHEDULED_EVENTS);
+          put(GenericPermissionOverrideEvent.class, CacheFlag.MEMBER_OVERRIDES);
+          put(GenericForumTagEvent.class, CacheFlag.FORUM_TAGS);
+        }
+      };
+
+  private final EnumSet<GatewayIntent> intents = EnumSet.noneOf(GatewayIntent.class);
+  private final EnumSet<CacheFlag> cacheFlags = EnumSet.noneOf(CacheFlag.class);
+
+  /**
+   * Adds the requirements of a listener or command.
+   *
+   * @param listener listener to inspect
+   * @return IntentResolver instance
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  public IntentResolver inspect(Object listener) {
+    inspect(listener.getClass());
+    if (listener instanceof GatewayRequirements) {
+      GatewayRequirements requirements = (GatewayRequirements) listener;
+      intents.addAll(requirements.getRequiredIntents());
+      cacheFlags.addAll(requirements.getRequiredCacheFlags());
+    }
+    return this;
+  }
+
+  /**
+   * Adds the requirements derived from the handlers of a listener class.
+   * Declared {@link GatewayRequirements} need an instance and are not included.
+   *
+   * @param listenerClass listener class to inspect
+   * @return IntentResolver instance
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  public IntentResolver inspect(Class<?> listenerClass) {
+    Set<Class<? extends GenericEvent>> events = ListenerInspector.getHandledEvents(listenerClass);
+
+    if (ListenerInspector.handlesAllEvents(listenerClass)) {
+      intents.addAll(GatewayIntent.getIntents(GatewayIntent.DEFAULT));
+      intents.add(GatewayIntent.MESSAGE_CONTENT);
+      return this;
+    }
+
+    intents.addAll(GatewayIntent.fromEvents(events));
+    for (Class<? extends GenericEvent> event : events) {
+      for (Map.Entry<Class<? extends GenericEvent>, CacheFlag> entry : eventCacheFlags.entrySet()) {
+        // Handlers for either the specific event or one of its supertypes need the cache.
+        if (entry.getKey().isAssignableFrom(event) || event.isAssignableFrom(entry.getKey())) {
+          cacheFlags.add(entry.getValue());
+        }
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Adds intents explicitly.
+   *
+   * @param required intents to add
+   * @return IntentResolver instance
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  public IntentResolver require(GatewayIntent... required) {
+    Collections.addAll(intents, required);
+    return this;
+  }
+
+  /**
+   * Adds cache flags explicitly.
+   *
+   * @param required cache flags to add
+   * @return IntentResolver instance
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  public IntentResolver require(CacheFlag... required) {
+    Collections.addAll(cacheFlags, required);
+    return this;
+  }
+
+  /**
+   * Retrieves the resolved intents, including those needed by the resolved cache flags.
+   *
+   * @return resolved intents
+   */
+  public EnumSet<GatewayIntent> getIntents() {
+    EnumSet<GatewayIntent> resolved = EnumSet.copyOf(intents);
+    resolved.addAll(GatewayIntent.fromCacheFlags(cacheFlags));
+    return resolved;
+  }
+
+  /**
+   * Retrieves the resolved cache flags.
+   *
+   * @return resolved cache flags
+   */
+  public EnumSet<CacheFlag> getCacheFlags() {
+    return EnumSet.copyOf(cacheFlags);
+  }
+
+  /**
+   * Determines if a listener class is covered by the resolved intents.
+   *
+   * @param listenerClass listener class to check
+   * @return true if every intent it needs is resolved, false if not
+   */
+  public boolean covers(Class<?> listenerClass) {
+    return getIntents().containsAll(new IntentResolver().inspect(listenerClass).getIntents());
+  }
+}
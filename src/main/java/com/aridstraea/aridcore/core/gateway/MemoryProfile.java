@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.gateway;
+
+import java.util.EnumSet;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+/**
+ * MemoryProfile enum of the AridCore project.
+ * Named presets for how much of Discord's entities JDA keeps in memory.
+ *
+ * <ul>
+ *   <li>{@link #MINIMAL}: no members are cached or chunked. Use the
+ *   {@link com.aridstraea.aridcore.core.cache.MemberLoader} to fetch members when needed.</li>
+ *   <li>{@link #BALANCED}: only guild owners and members in voice channels are cached.</li>
+ *   <li>{@link #FULL}: every member of every guild is chunked and cached.
+ *   Requires the privileged {@link GatewayIntent#GUILD_MEMBERS} intent.</li>
+ * </ul>
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public enum MemoryProfile {
+
+  MINIMAL("minimal", "No member cache or chunking."),
+  BALANCED("balanced", "Caches guild owners and voice members only."),
+  FULL("full", "Chunks and caches every member.");
+
+  private final String name;
+  private final String description;
+
+  MemoryProfile(String name, String description) {
+    this.name = name;
+    this.description = description;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Retrieves a MemoryProfile by name.
+   *
+   * @param name name of the profile, case-insensitive
+   * @return matching profile, or null if none match
+   */
+  public static MemoryProfile fromName(String name) {
+    for (MemoryProfile profile : values()) {
+      if (profile.getName().equalsIgnoreCase(name.trim())) {
+        return profile;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Retrieves the member cache policy of the profile.
+   *
+   * @param cacheFlags cache flags the Bot is built with
+   * @return member cache policy
+   */
+  public MemberCachePolicy getMemberCachePolicy(EnumSet<CacheFlag> cacheFlags) {
+    switch (this) {
+      case MINIMAL:
+        return MemberCachePolicy.NONE;
+      case FULL:
+        return MemberCachePolicy.ALL;
+      default:
+        // VOICE can only be tracked with the voice state cache.
+        return cacheFlags.contains(CacheFlag.VOICE_STATE)
+            ? MemberCachePolicy.DEFAULT : MemberCachePolicy.OWNER;
+    }
+  }
+
+  /**
+   * Retrieves the chunking filter of the profile.
+   *
+   * @return chunking filter
+   */
+  public ChunkingFilter getChunkingFilter() {
+    return this == FULL ? ChunkingFilter.ALL : ChunkingFilter.NONE;
+  }
+
+  /**
+   * Retrieves the intents the profile needs in addition to the derived ones.
+   *
+   * @return additional intents
+   */
+  public EnumSet<GatewayIntent> getAdditionalIntents() {
+    return this == FULL
+        ? EnumSet.of(GatewayIntent.GUILD_MEMBERS) : EnumSet.noneOf(GatewayIntent.class);
+  }
+
+  /**
+   * Retrieves the cache flags of the profile. Profiles other than {@link #FULL} only enable
+   * derived flags; {@link #FULL} enables every flag whose intent is already enabled.
+   *
+   * @param derived derived cache flags
+   * @param intents intents the Bot is built with
+   * @return cache flags to enable
+   */
+  public EnumSet<CacheFlag> getCacheFlags(EnumSet<CacheFlag> derived,
+      EnumSet<GatewayIntent> intents) {
+    EnumSet<CacheFlag> flags = EnumSet.copyOf(derived);
+    if (this == FULL) {
+      for (CacheFlag flag : CacheFlag.values()) {
+        if (flag.getRequiredIntent() == null || intents.contains(flag.getRequiredIntent())) {
+          flags.add(flag);
+        }
+      }
+    }
+    return flags;
+  }
+}
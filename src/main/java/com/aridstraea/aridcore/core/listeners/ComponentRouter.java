@@ -0,0 +1,245 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.listeners;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import net.dv8tion.jda.api.events.interaction.component.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+
+/**
+ * ComponentRouter class of the AridCore project.
+ * Routes button and select menu interactions to handlers by the custom ID of the component.
+ *
+ * <p>{@link #encode(int, ComponentState)} packs a handler ID and its state into a custom ID:
+ * a <code>~</code> followed by base64url of a header byte (format version and flags), the
+ * handler ID as a varint and the state. Dispatching decodes it and indexes an array, so no
+ * per-message state is kept and every handler shares this one listener. Custom IDs not
+ * starting with <code>~</code> are left to other listeners.
+ *
+ * <p>State too large for the custom ID is kept in a store, and only its key is encoded.
+ * Entries expire between one and two TTLs after they were last used; an interaction whose
+ * state has expired is answered with an ephemeral notice and counted as
+ * <code>components.expired</code>.
+ *
+ * <p>Handler IDs are stored in sent messages, so they must stay the same across restarts.
+ * IDs below 16 are reserved for AridCore.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class ComponentRouter extends ListenerAdapter {
+
+  private static final char PREFIX = '~';
+  private static final int VERSION = 1;
+  private static final int FLAG_STORED = 1;
+  private static final int MAX_BYTES = (Button.ID_MAX_LENGTH - 1) * 6 / 8;
+  private static final String EXPIRED = "This message has expired, please run the command again.";
+
+  private final CoreMetrics metrics;
+  private volatile ComponentHandler[] handlers = new ComponentHandler[16];
+  private Map<Long, byte[]> stored = new HashMap<>();
+  private Map<Long, byte[]> expiring = new HashMap<>();
+  private long rotated = System.currentTimeMillis();
+  private long ttl = 900000;
+
+  /**
+   * Handles interactions with components encoded for it.
+   */
+  @FunctionalInterface
+  public interface ComponentHandler {
+
+    /**
+     * Called for an interaction with a component encoded for the handler.
+     *
+     * @param event Event triggered
+     * @param state state encoded with the component
+     */
+    void handle(GenericComponentInteractionCreateEvent event, ComponentState state);
+  }
+
+  /**
+   * Creates a new ComponentRouter.
+   *
+   * @param metrics metrics to count interactions in
+   */
+  public ComponentRouter(CoreMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Registers a handler, replacing the handler registered with the same ID before.
+   *
+   * @param id      ID of the handler, encoded in custom IDs
+   * @param handler handler of the interactions
+   * @return ComponentRouter instance
+   */
+  public synchronized ComponentRouter register(int id, ComponentHandler handler) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Handler ID must not be negative: " + id);
+    }
+    ComponentHandler[] updated = Arrays.copyOf(handlers, Math.max(handlers.length, id + 1));
+    updated[id] = handler;
+    handlers = updated;
+    return this;
+  }
+
+  /**
+   * Removes a handler; its components are no longer answered.
+   *
+   * @param id ID of the handler
+   * @return ComponentRouter instance
+   */
+  public synchronized ComponentRouter unregister(int id) {
+    if (id >= 0 && id < handlers.length) {
+      ComponentHandler[] updated = handlers.clone();
+      updated[id] = null;
+      handlers = updated;
+    }
+    return this;
+  }
+
+  /**
+   * Sets how long state too large for a custom ID is kept.
+   *
+   * @param ttl milliseconds since the state was last used
+   * @return ComponentRouter instance
+   */
+  public synchronized ComponentRouter setStateTtl(long ttl) {
+    this.ttl = Math.max(1000, ttl);
+    return this;
+  }
+
+  /**
+   * Encodes a custom ID routing to a handler.
+   *
+   * @param id    ID of the handler
+   * @param state state to pass to the handler, or null
+   * @return custom ID of at most {@link Button#ID_MAX_LENGTH} characters
+   */
+  public String encode(int id, ComponentState state) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Handler ID must not be negative: " + id);
+    }
+    ComponentState out = new ComponentState();
+    out.writeByte(VERSION << 4);
+    out.writeInt(id);
+    if (state != null && out.size() + state.size() > MAX_BYTES) {
+      out.array()[0] |= FLAG_STORED;
+      out.writeLong(store(state.toByteArray()));
+      metrics.increment("components.stored");
+    } else if (state != null) {
+      out.writeBytes(state.array(), 0, state.size());
+    }
+    return PREFIX + Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(Arrays.copyOf(out.array(), out.size()));
+  }
+
+  @Override
+  public void onGenericComponentInteractionCreate(GenericComponentInteractionCreateEvent event) {
+    String customId = event.getComponentId();
+    if (customId.isEmpty() || customId.charAt(0) != PREFIX) {
+      return;
+    }
+
+    ComponentHandler handler;
+    ComponentState state;
+    try {
+      state = new ComponentState(Base64.getUrlDecoder().decode(customId.substring(1)), 0);
+      int header = state.readByte();
+      int id = state.readInt();
+      ComponentHandler[] current = handlers;
+      if (header >>> 4 != VERSION || id < 0 || id >= current.length || current[id] == null) {
+        unknown(customId);
+        return;
+      }
+      handler = current[id];
+      if ((header & FLAG_STORED) != 0) {
+        byte[] bytes = load(state.readLong());
+        if (bytes == null) {
+          metrics.increment("components.expired");
+          event.reply(EXPIRED).setEphemeral(true).queue();
+          return;
+        }
+        state = new ComponentState(bytes, 0);
+      }
+    } catch (IllegalArgumentException iae) {
+      unknown(customId);
+      return;
+    }
+
+    metrics.increment("components.dispatched");
+    handler.handle(event, state);
+  }
+
+  /**
+   * Retrieves the number of states kept for custom IDs.
+   *
+   * @return stored states, including expiring ones
+   */
+  public synchronized int getStoredCount() {
+    return stored.size() + expiring.size();
+  }
+
+  private void unknown(String customId) {
+    metrics.increment("components.unknown");
+    AridCore.getLog().debug("No component handler for " + customId, OperationStage.EVENT);
+  }
+
+  private synchronized long store(byte[] bytes) {
+    rotate();
+    long key;
+    do {
+      key = ThreadLocalRandom.current().nextLong();
+    } while (stored.containsKey(key) || expiring.containsKey(key));
+    stored.put(key, bytes);
+    return key;
+  }
+
+  private synchronized byte[] load(long key) {
+    rotate();
+    byte[] bytes = stored.get(key);
+    if (bytes == null) {
+      bytes = expiring.remove(key);
+      if (bytes != null) {
+        stored.put(key, bytes);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Moves the stored states to the expiring generation once per TTL, dropping the previous one.
+   */
+  private void rotate() {
+    long now = System.currentTimeMillis();
+    if (now - rotated < ttl) {
+      return;
+    }
+    expiring = now - rotated < 2 * ttl ? stored : new HashMap<>();
+    stored = new HashMap<>();
+    rotated = now;
+  }
+}
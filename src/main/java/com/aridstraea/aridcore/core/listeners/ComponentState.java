@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.listeners;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ComponentState class of the AridCore project.
+ * Compact state carried in the custom ID of a component routed by {@link ComponentRouter}.
+ *
+ * <p>Values are written in order and must be read back in the same order. Integers are
+ * zig-zag varints, so small values of either sign take a single byte; Strings are UTF-8
+ * prefixed with their length. Reading beyond the written values throws an
+ * {@link IllegalArgumentException}.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public final class ComponentState {
+
+  private byte[] bytes;
+  private int length;
+  private int position;
+
+  /**
+   * Creates empty ComponentState to write values to.
+   */
+  public ComponentState() {
+    this.bytes = new byte[16];
+  }
+
+  /**
+   * Creates ComponentState reading encoded values.
+   *
+   * @param bytes    encoded values
+   * @param position offset of the first value
+   */
+  ComponentState(byte[] bytes, int position) {
+    this.bytes = bytes;
+    this.length = bytes.length;
+    this.position = position;
+  }
+
+  /**
+   * Writes an int.
+   *
+   * @param value value to write
+   * @return ComponentState instance
+   */
+  public ComponentState writeInt(int value) {
+    return writeLong(value);
+  }
+
+  /**
+   * Writes a long, such as a snowflake ID.
+   *
+   * @param value value to write
+   * @return ComponentState instance
+   */
+  public ComponentState writeLong(long value) {
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & ~0x7FL) != 0) {
+      writeByte((int) (zigzag & 0x7F) | 0x80);
+      zigzag >>>= 7;
+    }
+    writeByte((int) zigzag);
+    return this;
+  }
+
+  /**
+   * Writes a boolean.
+   *
+   * @param value value to write
+   * @return ComponentState instance
+   */
+  public ComponentState writeBoolean(boolean value) {
+    writeByte(value ? 1 : 0);
+    return this;
+  }
+
+  /**
+   * Writes a String.
+   *
+   * @param value value to write
+   * @return ComponentState instance
+   */
+  public ComponentState writeString(String value) {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    writeInt(utf8.length);
+    writeBytes(utf8, 0, utf8.length);
+    return this;
+  }
+
+  /**
+   * Reads an int.
+   *
+   * @return next value
+   */
+  public int readInt() {
+    long value = readLong();
+    if (value != (int) value) {
+      throw new IllegalArgumentException("Component state value is not an int.");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Reads a long.
+   *
+   * @return next value
+   */
+  public long readLong() {
+    long zigzag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      zigzag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+      }
+    }
+    throw new IllegalArgumentException("Component state value is malformed.");
+  }
+
+  /**
+   * Reads a boolean.
+   *
+   * @return next value
+   */
+  public boolean readBoolean() {
+    return readByte() != 0;
+  }
+
+  /**
+   * Reads a String.
+   *
+   * @return next value
+   */
+  public String readString() {
+    int size = readInt();
+    if (size < 0 || size > length - position) {
+      throw new IllegalArgumentException("Component state is truncated.");
+    }
+    String value = new String(bytes, position, size, StandardCharsets.UTF_8);
+    position += size;
+    return value;
+  }
+
+  /**
+   * Determines if values are left to read.
+   *
+   * @return true if another value can be read
+   */
+  public boolean hasRemaining() {
+    return position < length;
+  }
+
+  /**
+   * Retrieves the number of bytes written.
+   *
+   * @return encoded size
+   */
+  public int size() {
+    return length;
+  }
+
+  void writeByte(int value) {
+    if (length == bytes.length) {
+      bytes = Arrays.copyOf(bytes, length * 2);
+    }
+    bytes[length++] = (byte) value;
+  }
+
+  void writeBytes(byte[] values, int offset, int count) {
+    if (length + count > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(length + count, length * 2));
+    }
+    System.arraycopy(values, offset, bytes, length, count);
+    length += count;
+  }
+
+  int readByte() {
+    if (position >= length) {
+      throw new IllegalArgumentException("Component state is truncated.");
+    }
+    return bytes[position++] & 0xFF;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, length);
+  }
+
+  byte[] array() {
+    return bytes;
+  }
+}
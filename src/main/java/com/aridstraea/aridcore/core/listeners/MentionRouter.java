@@ -0,0 +1,140 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.listeners;
+
+import com.aridstraea.aridcore.utilities.KeywordAutomaton;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+/**
+ * MentionRouter class of the AridCore project.
+ * Routes messages mentioning the Bot to the handler of the first keyword they contain.
+ *
+ * <p>The mention is found by scanning the raw content for <code>&lt;@id&gt;</code> or
+ * <code>&lt;@!id&gt;</code>, so mentions are never resolved for messages that do not
+ * address the Bot. Keywords are then matched in a single pass; when several occur, the one
+ * registered first wins. Registering rebuilds an immutable automaton, so routing reads
+ * nothing mutable besides a single volatile reference.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class MentionRouter extends ListenerAdapter {
+
+  private final Map<String, KeywordHandler> handlers = new LinkedHashMap<>();
+  private volatile KeywordAutomaton<KeywordHandler> keywords =
+      KeywordAutomaton.<KeywordHandler>builder().build();
+
+  /**
+   * Handles a message mentioning the Bot with a keyword.
+   */
+  @FunctionalInterface
+  public interface KeywordHandler {
+
+    /**
+     * Called for a message mentioning the Bot with the handler's keyword.
+     *
+     * @param event Event triggered
+     */
+    void handle(MessageReceivedEvent event);
+  }
+
+  /**
+   * Registers a keyword, replacing the handler of a keyword registered before.
+   *
+   * @param keyword keyword to route, matched ignoring case
+   * @param handler handler of the keyword
+   * @return MentionRouter instance
+   */
+  public synchronized MentionRouter register(String keyword, KeywordHandler handler) {
+    handlers.put(keyword, handler);
+    rebuild();
+    return this;
+  }
+
+  /**
+   * Removes a keyword.
+   *
+   * @param keyword keyword to remove
+   * @return MentionRouter instance
+   */
+  public synchronized MentionRouter unregister(String keyword) {
+    if (handlers.remove(keyword) != null) {
+      rebuild();
+    }
+    return this;
+  }
+
+  @Override
+  public void onMessageReceived(MessageReceivedEvent event) {
+    KeywordAutomaton<KeywordHandler> automaton = keywords;
+    if (automaton.isEmpty()) {
+      return;
+    }
+    String content = event.getMessage().getContentRaw();
+    if (!mentions(content, event.getJDA().getSelfUser().getIdLong())) {
+      return;
+    }
+    KeywordHandler handler = automaton.findFirst(content);
+    if (handler != null) {
+      handler.handle(event);
+    }
+  }
+
+  /**
+   * Determines if raw message content mentions a user.
+   *
+   * @param content raw message content
+   * @param userId  ID of the user
+   * @return true if the content contains <code>&lt;@id&gt;</code> or
+   *     <code>&lt;@!id&gt;</code>
+   */
+  static boolean mentions(String content, long userId) {
+    int from = content.indexOf("<@");
+    while (from >= 0) {
+      int i = from + 2;
+      if (i < content.length() && content.charAt(i) == '!') {
+        i++;
+      }
+      long id = 0;
+      int digits = 0;
+      while (i < content.length() && digits < 20) {
+        char c = content.charAt(i);
+        if (c < '0' || c > '9') {
+          break;
+        }
+        id = id * 10 + (c - '0');
+        digits++;
+        i++;
+      }
+      if (digits > 0 && id == userId && i < content.length() && content.charAt(i) == '>') {
+        return true;
+      }
+      from = content.indexOf("<@", from + 2);
+    }
+    return false;
+  }
+
+  private void rebuild() {
+    KeywordAutomaton.Builder<KeywordHandler> builder = KeywordAutomaton.builder();
+    handlers.forEach(builder::add);
+    keywords = builder.build();
+  }
+}
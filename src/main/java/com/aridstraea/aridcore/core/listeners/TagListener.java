@@ -16,46 +16,27 @@
 
 package com.aridstraea.aridcore.core.listeners;
 
-import com.aridstraea.aridcore.utilities.MessageUtilities;
 import com.aridstraea.aridcore.core.AridCore;
-import java.util.List;
-import net.dv8tion.jda.api.entities.Message;
-import net.dv8tion.jda.api.entities.User;
-import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
-import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import com.aridstraea.aridcore.utilities.MessageUtilities;
 
 /**
  * TagListener class of the AridCore project.
+ * Answers "prefix" and "info" when the Bot is mentioned; more keywords can be registered
+ * through {@link #register(String, KeywordHandler)}.
  *
  * @author aristraea
  * @since 0.1.0-S
  */
-public class TagListener extends ListenerAdapter {
-
-  final User botMention = AridCore.getApi().getSelfUser();
-  String messageContent;
-
-  @Override
-  @SuppressWarnings("ConstantConditions")
-  public void onMessageReceived(MessageReceivedEvent event) {
-    Message message = event.getMessage();
-    User author = event.getAuthor();
-    List<User> mentions = message.getMentions().getUsers();
-
-    // Check if 1) message is null, 2) author is null, 3) message doesn't mention bot
-    if (message.equals(null) || author.equals(null) || !mentions.contains(botMention)) {
-      return;
-    }
-
-    messageContent = message.getContentRaw();
-
-    // Check for prefix
-    if (messageContent.contains("prefix")) {
-      event.getChannel().sendMessage(
-          author.getAsMention() + ", the prefix is " + AridCore.getConfig().getPrefix()
-      ).queue();
-    } else if (messageContent.contains("info")) {
-      event.getChannel().sendMessageEmbeds(MessageUtilities.embedCoreInfo().build()).queue();
-    }
+public class TagListener extends MentionRouter {
+
+  /**
+   * Creates a new TagListener with the default keywords.
+   */
+  public TagListener() {
+    register("prefix", event -> event.getChannel().sendMessage(
+        event.getAuthor().getAsMention() + ", the prefix is " + AridCore.getConfig().getPrefix()
+    ).queue());
+    register("info", event -> event.getChannel()
+        .sendMessageEmbeds(MessageUtilities.embedCoreInfo().build()).queue());
   }
 }
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.metrics;
+
+import com.aridstraea.aridcore.utilities.InternalLogger;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * CoreMetrics class of the AridCore project.
+ * Named counters and gauges kept by the core, such as thread pool saturation.
+ * Counters are cheap to increment from any thread; gauges are read when a snapshot is taken.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class CoreMetrics {
+
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+  /**
+   * Increments a counter by one.
+   *
+   * @param name name of the counter
+   */
+  public void increment(String name) {
+    add(name, 1);
+  }
+
+  /**
+   * Adds to a counter.
+   *
+   * @param name  name of the counter
+   * @param delta amount to add
+   */
+  public void add(String name, long delta) {
+    counters.computeIfAbsent(name, n -> new LongAdder()).add(delta);
+  }
+
+  /**
+   * Retrieves the value of a counter.
+   *
+   * @param name name of the counter
+   * @return value of the counter, 0 if it was never incremented
+   */
+  public long getCount(String name) {
+    LongAdder counter = counters.get(name);
+    return counter == null ? 0 : counter.sum();
+  }
+
+  /**
+   * Registers a gauge, replacing any gauge of the same name.
+   *
+   * @param name  name of the gauge
+   * @param gauge supplier of the current value
+   */
+  public void registerGauge(String name, Supplier<? extends Number> gauge) {
+    gauges.put(name, gauge);
+  }
+
+  /**
+   * Removes every gauge whose name starts with a prefix.
+   *
+   * @param prefix prefix of the gauges to remove
+   */
+  public void removeGauges(String prefix) {
+    gauges.keySet().removeIf(name -> name.startsWith(prefix));
+  }
+
+  /**
+   * Takes a snapshot of every counter and gauge.
+   *
+   * @return values by name, sorted by name
+   */
+  public Map<String, Number> snapshot() {
+    Map<String, Number> values = new TreeMap<>();
+    counters.forEach((name, counter) -> values.put(name, counter.sum()));
+    gauges.forEach((name, gauge) -> values.put(name, gauge.get()));
+    return values;
+  }
+
+  /**
+   * Logs a snapshot of every counter and gauge.
+   *
+   * @param log   logger to use
+   * @param stage stage of the log
+   */
+  public void log(InternalLogger log, OperationStage stage) {
+    for (Map.Entry<String, Number> entry : snapshot().entrySet()) {
+      log.info(entry.getKey() + ": " + entry.getValue(), stage);
+    }
+  }
+}
@@ -0,0 +1,364 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.moderation;
+
+import com.aridstraea.aridcore.configuration.BotConfiguration;
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.gateway.GatewayRequirements;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.InternalLogger;
+import com.aridstraea.aridcore.utilities.KeywordAutomaton;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+
+/**
+ * ContentFilter class of the AridCore project.
+ * Scans guild messages once against every blocked entry, and deletes, warns or logs.
+ *
+ * <p>Entries are read from the filter file (<code>filter_file</code>), one per line; lines
+ * starting with <code>#</code> are comments. An entry matches as a whole word, unless it
+ * starts or ends with <code>*</code>, which lets it continue into the surrounding word, e.g.
+ * <code>*bad*</code> matches anywhere. Entries and messages are compared ignoring case and
+ * accents; ASCII messages skip normalization.
+ *
+ * <p>The file and the actions (<code>filter_actions</code>) are checked every
+ * <code>filter_reload_interval</code> milliseconds and compiled off the event threads, so
+ * filtering continues with the previous list until the new one is swapped in. Matches are
+ * counted as <code>filter.matches</code>.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class ContentFilter extends ListenerAdapter implements GatewayRequirements {
+
+  private static final String WARNING = ", your message contains blocked content.";
+
+  private final AridCore core;
+  private final CoreMetrics metrics;
+  private volatile Compiled compiled = Compiled.EMPTY;
+  private ScheduledThreadPoolExecutor timer;
+  private volatile BotConfiguration config;
+
+  /**
+   * An entry of the filter file.
+   */
+  private static final class Entry {
+
+    private final String text;
+    private final boolean wordStart;
+    private final boolean wordEnd;
+
+    private Entry(String text, boolean wordStart, boolean wordEnd) {
+      this.text = text;
+      this.wordStart = wordStart;
+      this.wordEnd = wordEnd;
+    }
+
+    /**
+     * Merges two entries matching the same text; the loosest boundaries win.
+     *
+     * @param other entry with the same text
+     * @return merged entry
+     */
+    private Entry merge(Entry other) {
+      return new Entry(text, wordStart && other.wordStart, wordEnd && other.wordEnd);
+    }
+  }
+
+  /**
+   * A compiled filter list, replaced as a whole on reload.
+   */
+  private static final class Compiled {
+
+    private static final Compiled EMPTY = new Compiled(
+        KeywordAutomaton.<Entry>builder().build(), EnumSet.noneOf(FilterAction.class), null, 0);
+
+    private final KeywordAutomaton<Entry> automaton;
+    private final EnumSet<FilterAction> actions;
+    private final String file;
+    private final long modified;
+
+    private Compiled(KeywordAutomaton<Entry> automaton, EnumSet<FilterAction> actions,
+        String file, long modified) {
+      this.automaton = automaton;
+      this.actions = actions;
+      this.file = file;
+      this.modified = modified;
+    }
+  }
+
+  /**
+   * Creates a new, empty ContentFilter.
+   *
+   * @param core    Bot the filter belongs to
+   * @param metrics metrics to count matches in
+   */
+  public ContentFilter(AridCore core, CoreMetrics metrics) {
+    this.core = core;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Loads the filter and starts checking it for changes.
+   *
+   * @param config Configuration naming the filter file & actions
+   */
+  public synchronized void start(BotConfiguration config) {
+    this.config = config;
+    reload();
+    long interval = config.getFilterReloadInterval();
+    if (interval > 0 && timer == null) {
+      timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(core.bind(runnable), "AridCore-ContentFilter");
+        thread.setDaemon(true);
+        return thread;
+      });
+      timer.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops checking the filter for changes.
+   */
+  public synchronized void shutdown() {
+    if (timer != null) {
+      timer.shutdownNow();
+      timer = null;
+    }
+  }
+
+  /**
+   * Reads & compiles the filter file and actions, then swaps them in.
+   */
+  public synchronized void reload() {
+    if (config == null) {
+      return;
+    }
+    String file = config.getFilterFile();
+    EnumSet<FilterAction> actions = parseActions(config.getFilterActions());
+    Path path = Paths.get(file);
+    if (!Files.isRegularFile(path)) {
+      compiled = new Compiled(Compiled.EMPTY.automaton, actions, file, 0);
+      return;
+    }
+
+    try {
+      long modified = Files.getLastModifiedTime(path).toMillis();
+      List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+      // Entries equal once normalized, e.g. "bad" and "*bad*", share one keyword.
+      Map<String, Entry> entries = new LinkedHashMap<>();
+      for (String line : lines) {
+        Entry entry = parseEntry(line.trim());
+        if (entry != null) {
+          entries.merge(fold(entry.text), entry, Entry::merge);
+        }
+      }
+      KeywordAutomaton.Builder<Entry> builder = KeywordAutomaton.builder();
+      for (Entry entry : entries.values()) {
+        builder.add(entry.text, entry);
+      }
+      compiled = new Compiled(builder.build(), actions, file, modified);
+      AridCore.getLog().debug("Loaded " + entries.size() + " filter entries from " + file + ".",
+          OperationStage.CONFIGURATION);
+    } catch (IOException ioe) {
+      AridCore.getLog().error("Unable to read the filter file. Keeping the previous filter.",
+          OperationStage.CONFIGURATION, ioe);
+    }
+  }
+
+  /**
+   * Scans a text against the filter.
+   *
+   * @param content text to scan
+   * @return normalized text of the matched entry, or null if clean
+   */
+  public String check(String content) {
+    KeywordAutomaton<Entry> automaton = compiled.automaton;
+    if (automaton.isEmpty()) {
+      return null;
+    }
+    String text = normalize(content);
+    Entry[] found = new Entry[1];
+    automaton.scan(text, (start, end, entry) -> {
+      if (entry.wordStart && start > 0 && Character.isLetterOrDigit(text.charAt(start - 1))
+          || entry.wordEnd && end < text.length()
+          && Character.isLetterOrDigit(text.charAt(end))) {
+        return true;
+      }
+      found[0] = entry;
+      return false;
+    });
+    return found[0] == null ? null : found[0].text;
+  }
+
+  /**
+   * Determines if a message is blocked by the filter, so listeners can skip it.
+   *
+   * @param event event of the message
+   * @return true if blocked, false if not
+   */
+  public boolean blocks(MessageReceivedEvent event) {
+    return match(event, compiled) != null;
+  }
+
+  @Override
+  public void onMessageReceived(MessageReceivedEvent event) {
+    Compiled current = compiled;
+    String match = match(event, current);
+    if (match == null) {
+      return;
+    }
+
+    metrics.increment("filter.matches");
+    if (current.actions.contains(FilterAction.DELETE)) {
+      // The failure callback runs on JDA's callback pool, which may not be bound to this Bot.
+      InternalLogger log = AridCore.getLog();
+      event.getMessage().delete().queue(null, failure -> log.debug(
+          "Unable to delete filtered message: " + failure.getMessage(), OperationStage.EVENT));
+    }
+    if (current.actions.contains(FilterAction.WARN)) {
+      event.getChannel().sendMessage(event.getAuthor().getAsMention() + WARNING).queue();
+    }
+    if (current.actions.contains(FilterAction.LOG)) {
+      AridCore.getLog().info("Filtered message " + event.getMessageId() + " from "
+          + event.getAuthor().getId() + " in " + event.getChannel().getId() + " for '" + match
+          + "'.", OperationStage.EVENT);
+    }
+  }
+
+  /**
+   * Filtering reads message content.
+   *
+   * @return required intents
+   */
+  @Override
+  public EnumSet<GatewayIntent> getRequiredIntents() {
+    return EnumSet.of(GatewayIntent.GUILD_MESSAGES, GatewayIntent.MESSAGE_CONTENT);
+  }
+
+  private String match(MessageReceivedEvent event, Compiled current) {
+    if (current.automaton.isEmpty() || !event.isFromGuild()
+        || event.getAuthor().getIdLong() == event.getJDA().getSelfUser().getIdLong()) {
+      return null;
+    }
+    return check(event.getMessage().getContentRaw());
+  }
+
+  private void reloadIfChanged() {
+    BotConfiguration current = config;
+    Compiled loaded = compiled;
+    String file = current.getFilterFile();
+    long modified = 0;
+    try {
+      Path path = Paths.get(file);
+      if (Files.isRegularFile(path)) {
+        modified = Files.getLastModifiedTime(path).toMillis();
+      }
+    } catch (IOException ioe) {
+      return;
+    }
+    if (!file.equals(loaded.file) || modified != loaded.modified
+        || !parseActions(current.getFilterActions()).equals(loaded.actions)) {
+      reload();
+    }
+  }
+
+  private EnumSet<FilterAction> parseActions(String value) {
+    EnumSet<FilterAction> actions = EnumSet.noneOf(FilterAction.class);
+    for (String name : value.split(",")) {
+      if (name.isBlank()) {
+        continue;
+      }
+      FilterAction action = FilterAction.fromName(name);
+      if (action == null) {
+        AridCore.getLog().warning("Unknown filter action '" + name.trim() + "'.",
+            OperationStage.CONFIGURATION);
+      } else {
+        actions.add(action);
+      }
+    }
+    return actions;
+  }
+
+  private static Entry parseEntry(String line) {
+    if (line.isEmpty() || line.startsWith("#")) {
+      return null;
+    }
+    boolean wordStart = !line.startsWith("*");
+    boolean wordEnd = !line.endsWith("*");
+    int from = wordStart ? 0 : 1;
+    int to = Math.max(from, wordEnd ? line.length() : line.length() - 1);
+    String text = normalize(line.substring(from, to));
+    return text.isEmpty() ? null : new Entry(text, wordStart, wordEnd);
+  }
+
+  /**
+   * Folds the case of a text as the {@link KeywordAutomaton} does.
+   *
+   * @param text text to fold
+   * @return folded text
+   */
+  private static String fold(String text) {
+    StringBuilder builder = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      builder.append(Character.toLowerCase(Character.toUpperCase(text.charAt(i))));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Decomposes a text and strips its accents, so accented letters compare equal to plain
+   * ones once case is folded. ASCII text is returned as is.
+   *
+   * @param text text to normalize
+   * @return normalized text
+   */
+  static String normalize(String text) {
+    int i = 0;
+    while (i < text.length() && text.charAt(i) < 0x80) {
+      i++;
+    }
+    if (i == text.length()) {
+      return text;
+    }
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+    StringBuilder builder = new StringBuilder(decomposed.length());
+    for (int j = 0; j < decomposed.length(); j++) {
+      char c = decomposed.charAt(j);
+      if (Character.getType(c) != Character.NON_SPACING_MARK) {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.moderation;
+
+/**
+ * Actions the {@link ContentFilter} takes on a message containing blocked content.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public enum FilterAction {
+
+  DELETE("delete"),
+  WARN("warn"),
+  LOG("log");
+
+  private final String name;
+
+  FilterAction(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Retrieves the action with a given name.
+   *
+   * @param name name of the action, ignoring case
+   * @return action, or null if unknown
+   */
+  public static FilterAction fromName(String name) {
+    for (FilterAction action : values()) {
+      if (action.name.equalsIgnoreCase(name.trim())) {
+        return action;
+      }
+    }
+    return null;
+  }
+}
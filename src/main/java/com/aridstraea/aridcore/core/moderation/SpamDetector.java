@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.moderation;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.InternalLogger;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * SpamDetector class of the AridCore project.
+ * Flags users sending too many or repeated messages, and channels flooded by a raid.
+ *
+ * <p>Message rates are counted per user, per channel and per user & content hash in
+ * {@link WindowCounter}s, so memory stays fixed however many users are active. Every message
+ * passes through {@link #inspect(MessageReceivedEvent)} before command parsing; spam is
+ * dropped there. A user crossing a limit is logged, counted as
+ * <code>spam.&lt;user|duplicate|channel&gt;.flagged</code> and, if a mute duration is set,
+ * timed out. Dropped messages are counted as <code>spam.suppressed</code>.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class SpamDetector {
+
+  private final CoreMetrics metrics;
+  private volatile Limits limits;
+
+  /**
+   * Limits & counters, replaced as a whole when reconfigured.
+   */
+  private static final class Limits {
+
+    private final WindowCounter users;
+    private final WindowCounter channels;
+    private final WindowCounter duplicates;
+    private final int userLimit;
+    private final int channelLimit;
+    private final int duplicateLimit;
+    private final long mute;
+
+    private Limits(int capacity, long window, int userLimit, int channelLimit,
+        int duplicateLimit, long mute) {
+      this.users = new WindowCounter(capacity, window);
+      this.channels = new WindowCounter(capacity / 8, window);
+      this.duplicates = new WindowCounter(capacity, window);
+      this.userLimit = userLimit;
+      this.channelLimit = channelLimit;
+      this.duplicateLimit = duplicateLimit;
+      this.mute = mute;
+    }
+  }
+
+  /**
+   * Creates a new, disabled SpamDetector.
+   *
+   * @param metrics metrics to count spam in
+   */
+  public SpamDetector(CoreMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sets the limits, forgetting every rate counted so far. A limit of 0 is not checked.
+   *
+   * @param window         window in milliseconds rates are counted over, 0 to disable
+   * @param capacity       users counted at once
+   * @param userLimit      messages a user may send per window
+   * @param channelLimit   messages a channel may receive per window
+   * @param duplicateLimit times a user may send the same content per window
+   * @param mute           milliseconds flagged users are timed out for, 0 to only flag
+   * @return SpamDetector instance
+   */
+  public SpamDetector configure(long window, int capacity, int userLimit, int channelLimit,
+      int duplicateLimit, long mute) {
+    limits = window <= 0 || capacity <= 0 ? null
+        : new Limits(capacity, window, userLimit, channelLimit, duplicateLimit, mute);
+    return this;
+  }
+
+  /**
+   * Counts a message, determining if it is spam.
+   *
+   * @param event Event triggered
+   * @return true if the message is spam and should not be processed further
+   */
+  public boolean inspect(MessageReceivedEvent event) {
+    Limits current = limits;
+    long userId = event.getAuthor().getIdLong();
+    if (current == null || userId == event.getJDA().getSelfUser().getIdLong()) {
+      return false;
+    }
+    long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    boolean spam = false;
+
+    if (current.userLimit > 0) {
+      int count = current.users.increment(userId, now);
+      if (count > current.userLimit) {
+        spam = true;
+        if (count == current.userLimit + 1) {
+          flag(event, "user", current.mute);
+        }
+      }
+    }
+    String content = event.getMessage().getContentRaw();
+    if (current.duplicateLimit > 0 && !content.isEmpty()) {
+      long key = userId * 0x9E3779B97F4A7C15L ^ content.hashCode();
+      int count = current.duplicates.increment(key == 0 ? 1 : key, now);
+      if (count > current.duplicateLimit) {
+        spam = true;
+        if (count == current.duplicateLimit + 1) {
+          flag(event, "duplicate", current.mute);
+        }
+      }
+    }
+    if (current.channelLimit > 0) {
+      int count = current.channels.increment(event.getChannel().getIdLong(), now);
+      if (count > current.channelLimit) {
+        spam = true;
+        if (count == current.channelLimit + 1) {
+          // A raid involves many users; flag the channel rather than whoever tipped it over.
+          flag(event, "channel", 0);
+        }
+      }
+    }
+
+    if (spam) {
+      metrics.increment("spam.suppressed");
+    }
+    return spam;
+  }
+
+  private void flag(MessageReceivedEvent event, String kind, long mute) {
+    metrics.increment("spam." + kind + ".flagged");
+    AridCore.getLog().warning("Flagged " + kind + " spam by " + event.getAuthor().getId()
+        + " in " + event.getChannel().getId() + ".", OperationStage.EVENT);
+
+    Member member = event.getMember();
+    if (mute <= 0 || member == null
+        || AridCore.getPermissions().isOwner(event.getAuthor().getIdLong())) {
+      return;
+    }
+    // The callbacks run on JDA's callback pool, which may not be bound to this Bot.
+    InternalLogger log = AridCore.getLog();
+    member.timeoutFor(Duration.ofMillis(mute)).queue(
+        success -> metrics.increment("spam.muted"),
+        failure -> log.debug("Unable to mute " + member.getId() + ": "
+            + failure.getMessage(), OperationStage.EVENT));
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.moderation;
+
+/**
+ * WindowCounter class of the AridCore project.
+ * Counts events per long key over a sliding window, in fixed memory.
+ *
+ * <p>Keys live in open-addressing tables split into independently locked segments. Each
+ * slot holds its key, the time slice it was last counted in, and a ring of per-slice counts.
+ * Slices that fell out of the window are cleared when the key is next counted, and slots of
+ * keys idle for a whole window are reused, so nothing needs sweeping. Probing is bounded;
+ * a key that finds no slot is not counted.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+final class WindowCounter {
+
+  static final int SLICES = 8;
+  private static final int SEGMENTS = 16;
+  private static final int MAX_PROBE = 32;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final long sliceMillis;
+
+  /**
+   * Fixed-size part of the table, guarded by its own lock.
+   */
+  private static final class Segment {
+
+    private final long[] keys;
+    private final long[] stamps;
+    private final char[] counts;
+    private final int mask;
+
+    private Segment(int size) {
+      keys = new long[size];
+      stamps = new long[size];
+      counts = new char[size * SLICES];
+      mask = size - 1;
+    }
+  }
+
+  /**
+   * Creates a new WindowCounter.
+   *
+   * @param capacity keys that can be counted at once
+   * @param window   length of the window in milliseconds
+   */
+  WindowCounter(int capacity, long window) {
+    int size = Integer.highestOneBit(Math.max(MAX_PROBE, capacity / SEGMENTS * 2 - 1)) << 1;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(size);
+    }
+    sliceMillis = Math.max(1, window / SLICES);
+  }
+
+  /**
+   * Counts an event for a key.
+   *
+   * @param key non-zero key to count for
+   * @param now current time in milliseconds
+   * @return events of the key within the window, this one included, or 0 if the table is full
+   */
+  int increment(long key, long now) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    Segment segment = segments[(int) (hash >>> 60)];
+    long epoch = now / sliceMillis;
+    synchronized (segment) {
+      int slot = find(segment, key, (int) hash & segment.mask, epoch);
+      if (slot < 0) {
+        return 0;
+      }
+      int base = slot * SLICES;
+      long stamp = segment.stamps[slot];
+      if (segment.keys[slot] != key || epoch - stamp >= SLICES) {
+        for (int i = 0; i < SLICES; i++) {
+          segment.counts[base + i] = 0;
+        }
+      } else {
+        // Clear the slices passed since the key was last counted.
+        for (long e = stamp + 1; e <= epoch; e++) {
+          segment.counts[base + (int) (e % SLICES)] = 0;
+        }
+      }
+      segment.keys[slot] = key;
+      segment.stamps[slot] = epoch;
+      int current = base + (int) (epoch % SLICES);
+      if (segment.counts[current] < Character.MAX_VALUE) {
+        segment.counts[current]++;
+      }
+      int total = 0;
+      for (int i = 0; i < SLICES; i++) {
+        total += segment.counts[base + i];
+      }
+      return total;
+    }
+  }
+
+  /**
+   * Finds the slot of a key, or the first reusable slot on its probe sequence.
+   */
+  private int find(Segment segment, long key, int start, long epoch) {
+    int reusable = -1;
+    int slot = start;
+    for (int i = 0; i < MAX_PROBE; i++) {
+      long current = segment.keys[slot];
+      if (current == key) {
+        return slot;
+      }
+      if (current == 0) {
+        return reusable >= 0 ? reusable : slot;
+      }
+      if (reusable < 0 && epoch - segment.stamps[slot] >= SLICES) {
+        reusable = slot;
+      }
+      slot = (slot + 1) & segment.mask;
+    }
+    return reusable;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.threads;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.constants.Module;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdmissionController class of the AridCore project.
+ * Bounded, prioritized queue in front of the {@link ModuleBulkheads}, so bursts of commands
+ * are shed instead of leaving the Bot minutes behind.
+ *
+ * <p>Commands wait in one of two lanes; the {@link Lane#PRIORITY} lane (owner and admin
+ * commands, Slash Commands) is always drained first. A command is shed, and counted, if its
+ * lane is full or it waited longer than its maximum delay: the configured threshold for the
+ * {@link Lane#NORMAL} lane, or the acknowledgement deadline of an interaction. Shed commands
+ * are answered with their busy reply, so interactions are never left unanswered.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class AdmissionController {
+
+  /**
+   * Lanes of the queue, in the order they are drained.
+   */
+  public enum Lane {
+    PRIORITY,
+    NORMAL;
+
+    private final String metric = "admission." + name().toLowerCase();
+  }
+
+  /** No maximum delay; the command is only shed if its lane is full. */
+  public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  private final AridCore core;
+  private final CoreMetrics metrics;
+  private final ModuleBulkheads bulkheads;
+  private final Semaphore pending = new Semaphore(0);
+  private List<ArrayBlockingQueue<Ticket>> lanes;
+  private long maxDelay;
+  private Thread worker;
+  private volatile boolean running = false;
+
+  /**
+   * Creates a new AdmissionController.
+   *
+   * @param core      Bot the commands belong to
+   * @param metrics   metrics to count admitted & shed commands in
+   * @param bulkheads bulkheads admitted commands are run in
+   */
+  public AdmissionController(AridCore core, CoreMetrics metrics, ModuleBulkheads bulkheads) {
+    this.core = core;
+    this.metrics = metrics;
+    this.bulkheads = bulkheads;
+  }
+
+  /**
+   * Starts admitting commands.
+   *
+   * @param queueSize commands each lane holds, 0 to pass commands straight to the bulkheads
+   * @param maxDelay  milliseconds a {@link Lane#NORMAL} command may wait before it is shed
+   * @return AdmissionController instance
+   */
+  public synchronized AdmissionController start(int queueSize, long maxDelay) {
+    if (running || queueSize <= 0) {
+      return this;
+    }
+    this.maxDelay = maxDelay;
+    lanes = new ArrayList<>();
+    for (Lane lane : Lane.values()) {
+      ArrayBlockingQueue<Ticket> queue = new ArrayBlockingQueue<>(queueSize);
+      lanes.add(queue);
+      metrics.registerGauge(lane.metric + ".queued", queue::size);
+    }
+    running = true;
+    worker = new Thread(core.bind(this::drain), "AridCore-Admission");
+    worker.setDaemon(true);
+    worker.start();
+    return this;
+  }
+
+  /**
+   * Queues a command.
+   *
+   * @param lane   lane to queue the command in
+   * @param module module the command runs in
+   * @param task   command execution
+   * @param busy   run if the command is shed or the module's bulkhead is full
+   * @param late   maximum delay in milliseconds for a {@link Lane#PRIORITY} command,
+   *               or {@link #NO_DEADLINE}; {@link Lane#NORMAL} commands use the configured one
+   * @return true if queued, false if shed because the lane is full or shutting down
+   */
+  public boolean submit(Lane lane, Module module, Runnable task, Runnable busy, long late) {
+    if (!running) {
+      if (!bulkheads.submit(module, task)) {
+        busy.run();
+      }
+      return true;
+    }
+    long deadline = lane == Lane.NORMAL ? maxDelay : late;
+    Ticket ticket = new Ticket(lane, module, task, busy, deadline);
+    ArrayBlockingQueue<Ticket> queue = lanes.get(lane.ordinal());
+    if (!queue.offer(ticket)) {
+      metrics.increment(lane.metric + ".shed.full");
+      busy.run();
+      return false;
+    }
+    pending.release();
+    // Shutdown may have drained the lanes before the offer; if so, answer the ticket here.
+    if (!running && queue.remove(ticket)) {
+      busy.run();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Stops admitting commands. Queued commands are answered with their busy reply.
+   */
+  public synchronized void shutdown() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    worker.interrupt();
+    for (ArrayBlockingQueue<Ticket> lane : lanes) {
+      Ticket ticket;
+      while ((ticket = lane.poll()) != null) {
+        try {
+          ticket.busy.run();
+        } catch (RuntimeException re) {
+          AridCore.getLog().error("Unable to answer a dropped command.",
+              OperationStage.SHUTDOWN, re);
+        }
+      }
+    }
+    metrics.removeGauges("admission.");
+  }
+
+  private void drain() {
+    while (running) {
+      try {
+        pending.acquire();
+      } catch (InterruptedException ie) {
+        return;
+      }
+      Ticket ticket = null;
+      for (ArrayBlockingQueue<Ticket> lane : lanes) {
+        ticket = lane.poll();
+        if (ticket != null) {
+          break;
+        }
+      }
+      if (ticket == null) {
+        continue;
+      }
+
+      long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ticket.queued);
+      try {
+        if (waited > ticket.maxDelay) {
+          metrics.increment(ticket.lane.metric + ".shed.delay");
+          ticket.busy.run();
+          continue;
+        }
+        metrics.increment(ticket.lane.metric + ".admitted");
+        if (!bulkheads.submit(ticket.module, ticket.task)) {
+          ticket.busy.run();
+        }
+      } catch (RuntimeException re) {
+        AridCore.getLog().error("Admitted command failed.", OperationStage.COMMAND_CALL, re);
+      }
+    }
+  }
+
+  /**
+   * A queued command.
+   */
+  private static final class Ticket {
+
+    private final Lane lane;
+    private final Module module;
+    private final Runnable task;
+    private final Runnable busy;
+    private final long maxDelay;
+    private final long queued = System.nanoTime();
+
+    private Ticket(Lane lane, Module module, Runnable task, Runnable busy, long maxDelay) {
+      this.lane = lane;
+      this.module = module;
+      this.task = task;
+      this.busy = busy;
+      this.maxDelay = maxDelay;
+    }
+  }
+}
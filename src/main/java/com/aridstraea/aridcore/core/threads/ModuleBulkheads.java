@@ -0,0 +1,276 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.threads;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.constants.Module;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ModuleBulkheads class of the AridCore project.
+ * Runs the commands of each {@link Module} on their own bounded executor, so a slow module
+ * cannot hold the threads other modules need.
+ *
+ * <p>Each module may run a limited number of commands at once and queue a limited number more;
+ * beyond that, commands are rejected immediately so the caller can reply that the Bot is busy.
+ * With virtual threads enabled and supported, commands start a virtual thread each and the
+ * limits are enforced with semaphores instead of a fixed pool.
+ * A concurrency of 0 runs the module's commands on the calling event thread, as before.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class ModuleBulkheads {
+
+  private final AridCore core;
+  private final CoreMetrics metrics;
+  private final Map<Module, int[]> limits = new EnumMap<>(Module.class);
+  private final Map<Module, Bulkhead> bulkheads = new EnumMap<>(Module.class);
+  private int defaultConcurrency = 0;
+  private int defaultQueueSize = 0;
+  private boolean virtualThreads = false;
+  private boolean shutdown = false;
+
+  /**
+   * Creates new ModuleBulkheads.
+   *
+   * @param core    Bot the commands belong to
+   * @param metrics metrics to report saturation to
+   */
+  public ModuleBulkheads(AridCore core, CoreMetrics metrics) {
+    this.core = core;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sets the limits used by modules without limits of their own.
+   * Only affects bulkheads not created yet.
+   *
+   * @param concurrency    commands run at once per module, 0 to run on the event thread
+   * @param queueSize      commands waiting per module before new ones are rejected
+   * @param virtualThreads true to run commands on virtual threads when supported
+   * @return ModuleBulkheads instance
+   */
+  public synchronized ModuleBulkheads setDefaults(int concurrency, int queueSize,
+      boolean virtualThreads) {
+    this.defaultConcurrency = Math.max(0, concurrency);
+    this.defaultQueueSize = Math.max(0, queueSize);
+    this.virtualThreads = virtualThreads;
+    return this;
+  }
+
+  /**
+   * Sets the limits of one module. Only affects the module if its bulkhead was not created yet,
+   * i.e. before its first command runs.
+   *
+   * @param module      module to limit
+   * @param concurrency commands run at once, 0 to run on the event thread
+   * @param queueSize   commands waiting before new ones are rejected
+   * @return ModuleBulkheads instance
+   */
+  public synchronized ModuleBulkheads setLimits(Module module, int concurrency, int queueSize) {
+    limits.put(module, new int[] {Math.max(0, concurrency), Math.max(0, queueSize)});
+    return this;
+  }
+
+  /**
+   * Runs a command in its module's bulkhead.
+   *
+   * @param module module of the command
+   * @param task   command execution
+   * @return true if run or queued, false if the module is saturated
+   */
+  public boolean submit(Module module, Runnable task) {
+    Bulkhead bulkhead = getBulkhead(module);
+    if (bulkhead == null) {
+      task.run();
+      return true;
+    }
+    if (!bulkhead.submit(task)) {
+      metrics.increment("bulkhead." + module.name().toLowerCase() + ".rejected");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Stops accepting commands and waits for running and queued ones, up to a deadline.
+   *
+   * @param timeout maximum time to wait
+   * @param unit    unit of the timeout
+   * @return true if every bulkhead terminated, false if not
+   */
+  public boolean shutdown(long timeout, TimeUnit unit) {
+    Map<Module, Bulkhead> closing;
+    synchronized (this) {
+      shutdown = true;
+      closing = new EnumMap<>(bulkheads);
+      bulkheads.clear();
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    boolean terminated = true;
+    for (Bulkhead bulkhead : closing.values()) {
+      bulkhead.executor.shutdown();
+    }
+    for (Bulkhead bulkhead : closing.values()) {
+      try {
+        long remaining = deadline - System.nanoTime();
+        if (!bulkhead.executor.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+          bulkhead.executor.shutdownNow();
+          terminated = false;
+        }
+      } catch (InterruptedException ie) {
+        bulkhead.executor.shutdownNow();
+        Thread.currentThread().interrupt();
+        terminated = false;
+      }
+    }
+    metrics.removeGauges("bulkhead.");
+    return terminated;
+  }
+
+  private synchronized Bulkhead getBulkhead(Module module) {
+    Bulkhead bulkhead = bulkheads.get(module);
+    if (bulkhead != null || shutdown) {
+      return bulkhead;
+    }
+    int[] limit = limits.getOrDefault(module, new int[] {defaultConcurrency, defaultQueueSize});
+    if (limit[0] == 0) {
+      return null;
+    }
+    bulkhead = createBulkhead(module, limit[0], limit[1]);
+    bulkheads.put(module, bulkhead);
+    return bulkhead;
+  }
+
+  private Bulkhead createBulkhead(Module module, int concurrency, int queueSize) {
+    String name = module.name().charAt(0) + module.name().substring(1).toLowerCase();
+    String metric = "bulkhead." + module.name().toLowerCase();
+    if (virtualThreads) {
+      ExecutorService virtual = ThreadPoolManager.createVirtualExecutor();
+      if (virtual != null) {
+        VirtualBulkhead bulkhead = new VirtualBulkhead(virtual, concurrency, queueSize);
+        metrics.registerGauge(metric + ".active", bulkhead.active::get);
+        metrics.registerGauge(metric + ".queued",
+            () -> Math.max(0, bulkhead.admitted.get() - bulkhead.active.get()));
+        return bulkhead;
+      }
+    }
+
+    AtomicInteger count = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 60,
+        TimeUnit.SECONDS, queueSize == 0 ? new SynchronousQueue<>()
+        : new ArrayBlockingQueue<>(queueSize), runnable -> {
+          Thread thread = new Thread(core.bind(runnable),
+              "AridCore-" + name + "-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    pool.allowCoreThreadTimeOut(true);
+    metrics.registerGauge(metric + ".active", pool::getActiveCount);
+    metrics.registerGauge(metric + ".queued", () -> pool.getQueue().size());
+    AridCore.getLog().debug("Created " + name + " bulkhead: " + concurrency + " running, "
+        + queueSize + " queued.", OperationStage.INIT);
+    return new Bulkhead(pool);
+  }
+
+  /**
+   * Bulkhead backed by a fixed pool with a bounded queue.
+   */
+  private static class Bulkhead {
+
+    final ExecutorService executor;
+
+    Bulkhead(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    boolean submit(Runnable task) {
+      try {
+        executor.execute(() -> {
+          // Log failed commands, which would otherwise only reach stderr.
+          try {
+            task.run();
+          } catch (Exception e) {
+            AridCore.getLog().error("A command had an uncaught exception.",
+                OperationStage.COMMAND_CALL, e);
+          }
+        });
+        return true;
+      } catch (RejectedExecutionException ree) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Bulkhead starting a virtual thread per command, limited by semaphores.
+   */
+  private final class VirtualBulkhead extends Bulkhead {
+
+    private final Semaphore capacity;
+    private final Semaphore running;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    VirtualBulkhead(ExecutorService executor, int concurrency, int queueSize) {
+      super(executor);
+      this.capacity = new Semaphore(concurrency + queueSize);
+      this.running = new Semaphore(concurrency);
+    }
+
+    @Override
+    boolean submit(Runnable task) {
+      if (!capacity.tryAcquire()) {
+        return false;
+      }
+      admitted.incrementAndGet();
+      Runnable bound = core.bind(task);
+      boolean submitted = super.submit(() -> {
+        try {
+          running.acquireUninterruptibly();
+          active.incrementAndGet();
+          try {
+            bound.run();
+          } finally {
+            active.decrementAndGet();
+            running.release();
+          }
+        } finally {
+          admitted.decrementAndGet();
+          capacity.release();
+        }
+      });
+      if (!submitted) {
+        admitted.decrementAndGet();
+        capacity.release();
+      }
+      return submitted;
+    }
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.threads;
+
+import com.aridstraea.aridcore.core.commands.ExecutionScope;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+import okhttp3.Response;
+
+/**
+ * PriorityRateLimiter class of the AridCore project.
+ * Holds back normal & background requests, so interactive ones find the rate limits free.
+ *
+ * <p>Requests are handed to JDA's rate limiter, which keeps handling the buckets. Interactive
+ * requests are passed on right away. At most <code>rest_normal_concurrency</code> normal and
+ * <code>rest_background_concurrency</code> background requests are passed on at once; the
+ * rest wait in order. Background requests also wait for normal ones, but for no longer than
+ * <code>rest_background_max_wait</code> milliseconds, so they are delayed, never starved.
+ * Requests are counted as <code>rest.&lt;priority&gt;.requests</code>, and background
+ * requests that stopped waiting as <code>rest.background.promoted</code>.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class PriorityRateLimiter implements RestRateLimiter {
+
+  private final RestRateLimiter delegate;
+  private final RateLimitConfig config;
+  private final CoreMetrics metrics;
+  private final int normalLimit;
+  private final int backgroundLimit;
+  private final long backgroundMaxWait;
+  private final Deque<Held> normal = new ArrayDeque<>();
+  private final Deque<Held> background = new ArrayDeque<>();
+  private int normalInFlight;
+  private int backgroundInFlight;
+  private boolean recheckScheduled;
+
+  /**
+   * A request waiting to be passed on.
+   */
+  private static final class Held {
+
+    private final Work work;
+    private final long since = System.nanoTime();
+
+    private Held(Work work) {
+      this.work = work;
+    }
+  }
+
+  /**
+   * A request passed on, which frees its slot once JDA is done with it.
+   */
+  private final class Tracked implements Work {
+
+    private final Work work;
+    private final RestPriority priority;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private Tracked(Work work, RestPriority priority) {
+      this.work = work;
+      this.priority = priority;
+    }
+
+    @Override
+    public Route.CompiledRoute getRoute() {
+      return work.getRoute();
+    }
+
+    @Override
+    public JDA getJDA() {
+      return work.getJDA();
+    }
+
+    @Override
+    public Response execute() {
+      try {
+        return work.execute();
+      } finally {
+        if (work.isDone() || work.isCancelled()) {
+          finish();
+        }
+      }
+    }
+
+    @Override
+    public boolean isSkipped() {
+      boolean skipped = work.isSkipped();
+      if (skipped) {
+        finish();
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean isDone() {
+      return work.isDone();
+    }
+
+    @Override
+    public boolean isPriority() {
+      return work.isPriority();
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return work.isCancelled();
+    }
+
+    @Override
+    public void cancel() {
+      work.cancel();
+    }
+
+    private void finish() {
+      if (finished.compareAndSet(false, true)) {
+        release(priority);
+      }
+    }
+  }
+
+  /**
+   * Creates a new PriorityRateLimiter.
+   *
+   * @param delegate          rate limiter handling the buckets
+   * @param config            configuration JDA created the rate limiter with
+   * @param metrics           metrics to count requests in
+   * @param normalLimit       normal requests passed on at once
+   * @param backgroundLimit   background requests passed on at once
+   * @param backgroundMaxWait milliseconds background requests wait for normal ones at most
+   */
+  public PriorityRateLimiter(RestRateLimiter delegate, RateLimitConfig config,
+      CoreMetrics metrics, int normalLimit, int backgroundLimit, long backgroundMaxWait) {
+    this.delegate = delegate;
+    this.config = config;
+    this.metrics = metrics;
+    this.normalLimit = Math.max(1, normalLimit);
+    this.backgroundLimit = Math.max(1, backgroundLimit);
+    this.backgroundMaxWait = TimeUnit.MILLISECONDS.toNanos(Math.max(0, backgroundMaxWait));
+  }
+
+  @Override
+  public void enqueue(Work work) {
+    RestPriority priority = classify(work);
+    metrics.increment("rest." + priority.getName() + ".requests");
+    if (priority == RestPriority.INTERACTIVE || delegate.isStopped()) {
+      delegate.enqueue(work);
+      return;
+    }
+    List<Tracked> ready;
+    synchronized (this) {
+      (priority == RestPriority.NORMAL ? normal : background).add(new Held(work));
+      ready = pump();
+    }
+    pass(ready);
+  }
+
+  @Override
+  public void stop(boolean shutdown, Runnable callback) {
+    // Pass on everything held, so JDA finishes or fails it as it would have.
+    List<Work> held = new ArrayList<>();
+    synchronized (this) {
+      for (Deque<Held> queue : List.of(normal, background)) {
+        while (!queue.isEmpty()) {
+          held.add(queue.poll().work);
+        }
+      }
+    }
+    for (Work work : held) {
+      delegate.enqueue(work);
+    }
+    delegate.stop(shutdown, callback);
+  }
+
+  @Override
+  public boolean isStopped() {
+    return delegate.isStopped();
+  }
+
+  @Override
+  public int cancelRequests() {
+    int cancelled = 0;
+    List<Tracked> ready;
+    synchronized (this) {
+      for (Deque<Held> queue : List.of(normal, background)) {
+        for (Held held : queue) {
+          if (!held.work.isPriority() && !held.work.isCancelled()) {
+            held.work.cancel();
+            cancelled++;
+          }
+        }
+      }
+      ready = pump();
+    }
+    pass(ready);
+    return cancelled + delegate.cancelRequests();
+  }
+
+  private RestPriority classify(Work work) {
+    RestPriority priority = RestPriority.current();
+    if (priority != null) {
+      return priority;
+    }
+    if (work.isPriority() || work.getRoute().getBaseRoute().isInteractionBucket()
+        || ExecutionScope.current() != null) {
+      return RestPriority.INTERACTIVE;
+    }
+    return RestPriority.NORMAL;
+  }
+
+  private void release(RestPriority priority) {
+    List<Tracked> ready;
+    synchronized (this) {
+      if (priority == RestPriority.NORMAL) {
+        normalInFlight--;
+      } else {
+        backgroundInFlight--;
+      }
+      ready = pump();
+    }
+    pass(ready);
+  }
+
+  /**
+   * Takes the waiting requests that have free slots. Called with the lock held; the result
+   * is passed on without it, as JDA's rate limiter calls back into this one.
+   *
+   * @return requests to pass on
+   */
+  private List<Tracked> pump() {
+    List<Tracked> ready = new ArrayList<>();
+    while (normalInFlight < normalLimit && !normal.isEmpty()) {
+      normalInFlight++;
+      ready.add(new Tracked(normal.poll().work, RestPriority.NORMAL));
+    }
+    long now = System.nanoTime();
+    while (backgroundInFlight < backgroundLimit && !background.isEmpty()) {
+      boolean overdue = now - background.peek().since >= backgroundMaxWait;
+      if (!normal.isEmpty() && !overdue) {
+        scheduleRecheck(background.peek().since + backgroundMaxWait - now);
+        break;
+      }
+      if (!normal.isEmpty()) {
+        metrics.increment("rest.background.promoted");
+      }
+      backgroundInFlight++;
+      ready.add(new Tracked(background.poll().work, RestPriority.BACKGROUND));
+    }
+    return ready;
+  }
+
+  private void pass(List<Tracked> ready) {
+    for (Tracked tracked : ready) {
+      if (tracked.work.isSkipped()) {
+        // Cancelled or expired while waiting; JDA already failed it.
+        tracked.finish();
+      } else {
+        delegate.enqueue(tracked);
+      }
+    }
+  }
+
+  private void scheduleRecheck(long delay) {
+    if (recheckScheduled) {
+      return;
+    }
+    recheckScheduled = true;
+    config.getScheduler().schedule(() -> {
+      List<Tracked> ready;
+      synchronized (this) {
+        recheckScheduled = false;
+        ready = pump();
+      }
+      pass(ready);
+    }, Math.max(0, delay), TimeUnit.NANOSECONDS);
+  }
+}
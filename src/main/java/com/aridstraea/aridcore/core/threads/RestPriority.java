@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.threads;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import net.dv8tion.jda.api.requests.RestAction;
+
+/**
+ * Priorities the {@link PriorityRateLimiter} serves requests in.
+ *
+ * <p>A request takes the priority of the thread that queues it. Requests queued without one
+ * are {@link #INTERACTIVE} when they answer an interaction or come from a running command,
+ * and {@link #NORMAL} otherwise. Requests queued later from a callback, e.g. in
+ * {@link CompletableFuture#thenCompose}, need to be tagged again.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public enum RestPriority {
+
+  INTERACTIVE("interactive"),
+  NORMAL("normal"),
+  BACKGROUND("background");
+
+  private static final ThreadLocal<RestPriority> current = new ThreadLocal<>();
+
+  private final String name;
+
+  RestPriority(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Retrieves the priority the calling thread queues requests with.
+   *
+   * @return priority, or null if none was set
+   */
+  public static RestPriority current() {
+    return current.get();
+  }
+
+  /**
+   * Queues a request with this priority.
+   *
+   * @param action request to queue
+   */
+  public void queue(RestAction<?> action) {
+    call(() -> {
+      action.queue();
+      return null;
+    });
+  }
+
+  /**
+   * Submits a request with this priority.
+   *
+   * @param action request to submit
+   * @param <T>    type of the response
+   * @return future of the response
+   */
+  public <T> CompletableFuture<T> submit(RestAction<T> action) {
+    return call(action::submit);
+  }
+
+  /**
+   * Runs code queueing requests with this priority.
+   *
+   * @param supplier code to run
+   * @param <T>      type of the result
+   * @return result of the code
+   */
+  public <T> T call(Supplier<T> supplier) {
+    RestPriority previous = current.get();
+    current.set(this);
+    try {
+      return supplier.get();
+    } finally {
+      if (previous == null) {
+        current.remove();
+      } else {
+        current.set(previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.threads;
+
+/**
+ * ScheduledTask class of the AridCore project.
+ * Handle of a task scheduled with the {@link TaskScheduler}, and its node in the wheel.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public final class ScheduledTask {
+
+  static final int PENDING = 0;
+  static final int CANCELLED = 1;
+  static final int DONE = 2;
+
+  final long id;
+  final long due;
+  final long deadlineTick;
+  final Runnable runnable;
+  final String type;
+  final String payload;
+  final TaskScheduler scheduler;
+  ScheduledTask previous;
+  ScheduledTask next;
+  int bucket = -1;
+  volatile int state = PENDING;
+
+  ScheduledTask(TaskScheduler scheduler, long id, long due, long deadlineTick, Runnable runnable,
+      String type, String payload) {
+    this.scheduler = scheduler;
+    this.id = id;
+    this.due = due;
+    this.deadlineTick = deadlineTick;
+    this.runnable = runnable;
+    this.type = type;
+    this.payload = payload;
+  }
+
+  /**
+   * Retrieves the ID of the task, which persistent tasks keep across restarts.
+   *
+   * @return task ID
+   */
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Retrieves when the task is due.
+   *
+   * @return epoch millisecond the task runs at
+   */
+  public long getDue() {
+    return due;
+  }
+
+  /**
+   * Determines if the task survives restarts.
+   *
+   * @return true if the task is journaled
+   */
+  public boolean isPersistent() {
+    return type != null;
+  }
+
+  /**
+   * Determines if the task was cancelled.
+   *
+   * @return true if cancelled
+   */
+  public boolean isCancelled() {
+    return state == CANCELLED;
+  }
+
+  /**
+   * Determines if the task ran, or is running.
+   *
+   * @return true if it was run
+   */
+  public boolean isDone() {
+    return state == DONE;
+  }
+
+  /**
+   * Cancels the task, if it did not run yet.
+   *
+   * @return true if cancelled, false if it already ran or was cancelled
+   */
+  public boolean cancel() {
+    return scheduler.cancel(this);
+  }
+}
@@ -0,0 +1,479 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.core.threads;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TaskScheduler class of the AridCore project.
+ * Runs delayed tasks, such as reminders, on a hashed timing wheel.
+ *
+ * <p>The wheel has a slot per tick, each holding a linked list of the tasks due in it, so
+ * scheduling and cancelling are constant time however many tasks are pending. A single
+ * thread advances the wheel every tick and runs the tasks that are due; they should hand
+ * anything slow to another executor.
+ *
+ * <p>Tasks scheduled with a type & payload are persistent: they are appended to a journal,
+ * and run by the handler registered for their type after a restart. The journal is only
+ * created once a persistent task is scheduled; at startup it is replayed if it exists, and
+ * compacted when it holds finished tasks next to pending ones. It is compacted again once it
+ * mostly holds finished tasks. Handlers must be registered before startup, or overdue tasks
+ * of their type are dropped.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class TaskScheduler {
+
+  private static final int WHEEL_SIZE = 512;
+  private static final int MASK = WHEEL_SIZE - 1;
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final int COMPACT_THRESHOLD = 4096;
+  private static final byte SCHEDULE = 1;
+  private static final byte REMOVE = 2;
+
+  private final AridCore core;
+  private final CoreMetrics metrics;
+  private final Map<String, TaskHandler> handlers = new ConcurrentHashMap<>();
+  private final ScheduledTask[] wheel = new ScheduledTask[WHEEL_SIZE];
+  private final Map<Long, ScheduledTask> persistent = new HashMap<>();
+  private final long origin = System.nanoTime();
+  private long tick;
+  private long nextId = 1;
+  private volatile int pending;
+  private volatile boolean running;
+  private Thread worker;
+  private Path journalPath;
+  private DataOutputStream journal;
+  private long journalRecords;
+
+  /**
+   * Runs persistent tasks of a type.
+   */
+  @FunctionalInterface
+  public interface TaskHandler {
+
+    /**
+     * Called when a task of the handler's type is due.
+     *
+     * @param payload payload the task was scheduled with
+     */
+    void run(String payload);
+  }
+
+  /**
+   * Creates a new TaskScheduler.
+   *
+   * @param core    Bot the tasks belong to
+   * @param metrics metrics to count tasks in
+   */
+  public TaskScheduler(AridCore core, CoreMetrics metrics) {
+    this.core = core;
+    this.metrics = metrics;
+    metrics.registerGauge("scheduler.pending", () -> pending);
+  }
+
+  /**
+   * Registers the handler of a type of persistent task.
+   *
+   * @param type    type of task
+   * @param handler handler running tasks of the type
+   * @return TaskScheduler instance
+   */
+  public TaskScheduler registerHandler(String type, TaskHandler handler) {
+    handlers.put(type, handler);
+    return this;
+  }
+
+  /**
+   * Schedules a task that is forgotten on restart.
+   *
+   * @param task  task to run
+   * @param delay delay before the task runs
+   * @param unit  unit of the delay
+   * @return handle of the task
+   */
+  public synchronized ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+    long due = System.currentTimeMillis() + unit.toMillis(delay);
+    ScheduledTask scheduled = new ScheduledTask(this, nextId++, due,
+        tickAfter(unit.toNanos(delay)), task, null, null);
+    insert(scheduled);
+    return scheduled;
+  }
+
+  /**
+   * Schedules a task that survives restarts. It is run by the handler of its type.
+   *
+   * @param type    type of task
+   * @param payload data the handler needs, at most a few kilobytes
+   * @param delay   delay before the task runs
+   * @param unit    unit of the delay
+   * @return handle of the task
+   * @throws IllegalStateException if the scheduler was not started
+   */
+  public synchronized ScheduledTask schedule(String type, String payload, long delay,
+      TimeUnit unit) {
+    if (journalPath == null) {
+      throw new IllegalStateException("Persistent tasks need a started scheduler.");
+    }
+    long due = System.currentTimeMillis() + unit.toMillis(delay);
+    ScheduledTask scheduled = new ScheduledTask(this, nextId, due,
+        tickAfter(unit.toNanos(delay)), null, type, payload);
+    append(encode(SCHEDULE, scheduled.id, due, type, payload));
+    nextId++;
+    persistent.put(scheduled.id, scheduled);
+    insert(scheduled);
+    return scheduled;
+  }
+
+  /**
+   * Cancels a persistent task by ID, e.g. one scheduled before a restart.
+   *
+   * @param id ID of the task
+   * @return true if cancelled, false if unknown or already run
+   */
+  public synchronized boolean cancel(long id) {
+    ScheduledTask task = persistent.get(id);
+    return task != null && cancel(task);
+  }
+
+  /**
+   * Retrieves the number of pending tasks.
+   *
+   * @return pending tasks
+   */
+  public int getPending() {
+    return pending;
+  }
+
+  /**
+   * Loads the journal and starts the wheel.
+   *
+   * @param journalFile file persistent tasks are journaled in
+   */
+  public synchronized void start(String journalFile) {
+    if (running) {
+      return;
+    }
+    journalPath = Paths.get(journalFile);
+    Map<Long, Long> dues = new LinkedHashMap<>();
+    Map<Long, String[]> data = new HashMap<>();
+    long records = 0;
+    if (Files.isRegularFile(journalPath)) {
+      try (DataInputStream in = new DataInputStream(
+          new BufferedInputStream(new FileInputStream(journalPath.toFile())))) {
+        while (true) {
+          byte op = in.readByte();
+          long id = in.readLong();
+          nextId = Math.max(nextId, id + 1);
+          if (op == SCHEDULE) {
+            dues.put(id, in.readLong());
+            data.put(id, new String[] {in.readUTF(), in.readUTF()});
+          } else {
+            dues.remove(id);
+            data.remove(id);
+          }
+          records++;
+        }
+      } catch (EOFException eof) {
+        // End of the journal, or a record cut off by a crash.
+      } catch (IOException ioe) {
+        AridCore.getLog().error("Unable to read the scheduler journal.", OperationStage.PRE_INIT,
+            ioe);
+      }
+    }
+
+    long now = System.currentTimeMillis();
+    for (Map.Entry<Long, Long> entry : dues.entrySet()) {
+      long due = entry.getValue();
+      String[] task = data.get(entry.getKey());
+      ScheduledTask scheduled = new ScheduledTask(this, entry.getKey(), due,
+          tickAfter(TimeUnit.MILLISECONDS.toNanos(due - now)), null, task[0], task[1]);
+      persistent.put(scheduled.id, scheduled);
+      insert(scheduled);
+    }
+    // A journal without pending tasks is left alone, and truncated once it is next written.
+    journalRecords = records;
+    if (!persistent.isEmpty() && records > persistent.size()) {
+      compact();
+    }
+    AridCore.getLog().debug("Loaded " + persistent.size() + " scheduled task(s).",
+        OperationStage.PRE_INIT);
+
+    running = true;
+    worker = new Thread(core.bind(this::run), "AridCore-Scheduler");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Stops the wheel. Persistent tasks stay in the journal for the next start.
+   */
+  public void shutdown() {
+    Thread thread;
+    synchronized (this) {
+      running = false;
+      thread = worker;
+      worker = null;
+    }
+    if (thread != null) {
+      thread.interrupt();
+      try {
+        thread.join(TimeUnit.NANOSECONDS.toMillis(TICK_NANOS) * 10);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    synchronized (this) {
+      closeJournal();
+    }
+  }
+
+  /**
+   * Cancels a task.
+   *
+   * @param task task to cancel
+   * @return true if cancelled, false if it already ran or was cancelled
+   */
+  synchronized boolean cancel(ScheduledTask task) {
+    if (task.state != ScheduledTask.PENDING) {
+      return false;
+    }
+    task.state = ScheduledTask.CANCELLED;
+    unlink(task);
+    if (task.isPersistent()) {
+      persistent.remove(task.id);
+      append(encode(REMOVE, task.id, 0, null, null));
+    }
+    metrics.increment("scheduler.cancelled");
+    return true;
+  }
+
+  private void run() {
+    while (running) {
+      long target;
+      synchronized (this) {
+        target = tick + 1;
+      }
+      long wait = origin + target * TICK_NANOS - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+        continue;
+      }
+
+      List<ScheduledTask> expired = new ArrayList<>();
+      synchronized (this) {
+        ScheduledTask task = wheel[(int) (target & MASK)];
+        while (task != null) {
+          ScheduledTask next = task.next;
+          if (task.deadlineTick <= target) {
+            unlink(task);
+            task.state = ScheduledTask.DONE;
+            expired.add(task);
+          }
+          task = next;
+        }
+        tick = target;
+      }
+      for (ScheduledTask task : expired) {
+        execute(task);
+      }
+      synchronized (this) {
+        if (journalRecords > COMPACT_THRESHOLD && journalRecords > 2L * persistent.size()) {
+          compact();
+        }
+      }
+    }
+  }
+
+  private void execute(ScheduledTask task) {
+    try {
+      if (task.runnable != null) {
+        task.runnable.run();
+      } else {
+        TaskHandler handler = handlers.get(task.type);
+        if (handler == null) {
+          AridCore.getLog().warning("No handler for scheduled task type '" + task.type
+              + "'. Dropping task " + task.id + ".", OperationStage.EVENT);
+        } else {
+          handler.run(task.payload);
+        }
+      }
+    } catch (Exception e) {
+      AridCore.getLog().error("Scheduled task " + task.id + " failed.", OperationStage.EVENT, e);
+    } finally {
+      if (task.isPersistent()) {
+        synchronized (this) {
+          persistent.remove(task.id);
+          append(encode(REMOVE, task.id, 0, null, null));
+        }
+      }
+      metrics.increment("scheduler.fired");
+    }
+  }
+
+  private long tickAfter(long delayNanos) {
+    // Round up, so tasks never run early.
+    long deadline = System.nanoTime() - origin + Math.max(0, Math.min(delayNanos,
+        Long.MAX_VALUE / 4));
+    return (deadline + TICK_NANOS - 1) / TICK_NANOS;
+  }
+
+  private void insert(ScheduledTask task) {
+    // Tasks due in a tick already passed run in the next one.
+    int bucket = (int) (Math.max(task.deadlineTick, tick + 1) & MASK);
+    task.bucket = bucket;
+    task.previous = null;
+    task.next = wheel[bucket];
+    if (task.next != null) {
+      task.next.previous = task;
+    }
+    wheel[bucket] = task;
+    pending++;
+  }
+
+  private void unlink(ScheduledTask task) {
+    if (task.bucket < 0) {
+      return;
+    }
+    if (task.previous == null) {
+      wheel[task.bucket] = task.next;
+    } else {
+      task.previous.next = task.next;
+    }
+    if (task.next != null) {
+      task.next.previous = task.previous;
+    }
+    task.previous = null;
+    task.next = null;
+    task.bucket = -1;
+    pending--;
+  }
+
+  private byte[] encode(byte op, long id, long due, String type, String payload) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(op);
+      out.writeLong(id);
+      if (op == SCHEDULE) {
+        out.writeLong(due);
+        out.writeUTF(type);
+        out.writeUTF(payload);
+      }
+    } catch (IOException ioe) {
+      // Only thrown for strings too long to be written.
+      throw new IllegalArgumentException("Task type or payload is too long.", ioe);
+    }
+    return bytes.toByteArray();
+  }
+
+  private void append(byte[] record) {
+    if (journal == null && (!running || !openJournal())) {
+      return;
+    }
+    try {
+      journal.write(record);
+      journal.flush();
+      journalRecords++;
+    } catch (IOException ioe) {
+      AridCore.getLog().error("Unable to write to the scheduler journal.", OperationStage.EVENT,
+          ioe);
+    }
+  }
+
+  /**
+   * Rewrites the journal with only the pending persistent tasks, then reopens it.
+   */
+  private void compact() {
+    closeJournal();
+    Path temporary = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(temporary.toFile())))) {
+        for (ScheduledTask task : persistent.values()) {
+          out.write(encode(SCHEDULE, task.id, task.due, task.type, task.payload));
+        }
+      }
+      Files.move(temporary, journalPath, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      journalRecords = persistent.size();
+    } catch (IOException ioe) {
+      AridCore.getLog().error("Unable to compact the scheduler journal.", OperationStage.EVENT,
+          ioe);
+    }
+    openJournal();
+  }
+
+  /**
+   * Opens the journal for appending, creating it if needed. Without pending persistent tasks
+   * its old records are all finished, so it is truncated instead.
+   *
+   * @return true if opened, false if it could not be
+   */
+  private boolean openJournal() {
+    boolean keep = !persistent.isEmpty();
+    try {
+      journal = new DataOutputStream(new BufferedOutputStream(
+          new FileOutputStream(journalPath.toFile(), keep)));
+      if (!keep) {
+        journalRecords = 0;
+      }
+      return true;
+    } catch (IOException ioe) {
+      AridCore.getLog().error("Unable to open the scheduler journal.", OperationStage.EVENT,
+          ioe);
+      return false;
+    }
+  }
+
+  private void closeJournal() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.close();
+    } catch (IOException ioe) {
+      AridCore.getLog().debug("Unable to close the scheduler journal: " + ioe.getMessage(),
+          OperationStage.SHUTDOWN);
+    }
+    journal = null;
+  }
+}
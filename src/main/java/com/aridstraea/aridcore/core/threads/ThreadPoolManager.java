@@ -0,0 +1,301 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.core.threads;
+
+import com.aridstraea.aridcore.configuration.BotConfiguration;
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.SharedResources;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import com.aridstraea.aridcore.utilities.constants.OperationStage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.dv8tion.jda.api.JDABuilder;
+
+/**
+ * ThreadPoolManager class of the AridCore project.
+ * Creates JDA's event, callback, rate-limit and gateway pools from the {@link BotConfiguration},
+ * optionally shared across every shard, and reports their saturation to {@link CoreMetrics}.
+ * Pools provided by {@link SharedResources} take precedence and are shared with other Bots.
+ *
+ * <p>A size of 0 leaves the pool to JDA's default. With virtual threads enabled, the event and
+ * callback pools start a virtual thread per task when the running JVM supports it, and fall back
+ * to platform threads otherwise.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class ThreadPoolManager {
+
+  private final AridCore core;
+  private final BotConfiguration config;
+  private final CoreMetrics metrics;
+  private final SharedResources sharedResources;
+  private final List<ExecutorService> sharedPools = new ArrayList<>();
+
+  private ExecutorService eventPool;
+  private ExecutorService callbackPool;
+  private ScheduledExecutorService rateLimitPool;
+  private ScheduledExecutorService gatewayPool;
+  private boolean created = false;
+
+  /**
+   * Creates a new ThreadPoolManager.
+   *
+   * @param core            AridCore instance the pool threads belong to
+   * @param config          configuration to read pool settings from
+   * @param metrics         metrics to report saturation to
+   * @param sharedResources pools shared with other Bots
+   */
+  public ThreadPoolManager(AridCore core, BotConfiguration config, CoreMetrics metrics,
+      SharedResources sharedResources) {
+    this.core = core;
+    this.config = config;
+    this.metrics = metrics;
+    this.sharedResources = sharedResources;
+  }
+
+  /**
+   * Applies the configured pools to a builder before a shard is built.
+   *
+   * @param builder builder of the shard
+   * @param shardId ID of the shard
+   * @return builder
+   */
+  public synchronized JDABuilder apply(JDABuilder builder, int shardId) {
+    boolean shared = config.getSharedThreadPools();
+    String scope = shared ? "" : ".shard-" + shardId;
+
+    if (!shared || !created) {
+      created = true;
+      eventPool = sharedResources.getEventPool() != null ? null
+          : createExecutor("Event", config.getEventPoolSize(), scope);
+      callbackPool = sharedResources.getCallbackPool() != null ? null
+          : createExecutor("Callback", config.getCallbackPoolSize(), scope);
+      rateLimitPool = sharedResources.getRateLimitScheduler() != null ? null
+          : createScheduler("RateLimit", config.getRateLimitPoolSize(), scope);
+      gatewayPool = sharedResources.getGatewayPool() != null ? null
+          : createScheduler("Gateway", config.getGatewayPoolSize(), scope);
+      if (shared) {
+        for (ExecutorService pool : new ExecutorService[] {eventPool, callbackPool, rateLimitPool,
+            gatewayPool}) {
+          if (pool != null) {
+            sharedPools.add(pool);
+          }
+        }
+      }
+    }
+
+    // Shared pools outlive any one shard and are shut down by the core.
+    boolean automaticShutdown = !shared;
+    // Pools shared with other Bots are wrapped, so tasks run with this Bot as the current one.
+    if (sharedResources.getEventPool() != null) {
+      builder.setEventPool(new MeteredExecutorService(sharedResources.getEventPool(), core),
+          false);
+    } else if (eventPool != null) {
+      builder.setEventPool(eventPool, automaticShutdown);
+    }
+    if (sharedResources.getCallbackPool() != null) {
+      builder.setCallbackPool(new MeteredExecutorService(sharedResources.getCallbackPool(),
+          core), false);
+    } else if (callbackPool != null) {
+      builder.setCallbackPool(callbackPool, automaticShutdown);
+    }
+    if (sharedResources.getRateLimitScheduler() != null) {
+      builder.setRateLimitScheduler(sharedResources.getRateLimitScheduler(), false);
+    } else if (rateLimitPool != null) {
+      builder.setRateLimitScheduler(rateLimitPool, automaticShutdown);
+    }
+    if (sharedResources.getGatewayPool() != null) {
+      builder.setGatewayPool(sharedResources.getGatewayPool(), false);
+    } else if (gatewayPool != null) {
+      builder.setGatewayPool(gatewayPool, automaticShutdown);
+    }
+    return builder;
+  }
+
+  /**
+   * Shuts down the shared pools, waiting for running tasks up to a deadline.
+   *
+   * @param timeout maximum time to wait
+   * @param unit    unit of the timeout
+   * @return true if every pool terminated, false if not
+   */
+  public synchronized boolean shutdown(long timeout, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    boolean terminated = true;
+    for (ExecutorService pool : sharedPools) {
+      pool.shutdown();
+    }
+    for (ExecutorService pool : sharedPools) {
+      try {
+        long remaining = deadline - System.nanoTime();
+        if (!pool.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+          pool.shutdownNow();
+          terminated = false;
+        }
+      } catch (InterruptedException ie) {
+        pool.shutdownNow();
+        Thread.currentThread().interrupt();
+        terminated = false;
+      }
+    }
+    sharedPools.clear();
+    metrics.removeGauges("pool.");
+    return terminated;
+  }
+
+  private ExecutorService createExecutor(String name, int size, String scope) {
+    String metric = "pool." + name.toLowerCase() + scope;
+    if (config.getVirtualThreads()) {
+      ExecutorService virtual = createVirtualExecutor();
+      if (virtual != null) {
+        MeteredExecutorService metered = new MeteredExecutorService(virtual, core);
+        metrics.registerGauge(metric + ".active", metered::getActiveCount);
+        return metered;
+      }
+    }
+    if (size <= 0) {
+      return null;
+    }
+
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), createThreadFactory(name, scope),
+        (task, executor) -> {
+          metrics.increment(metric + ".rejected");
+          throw new RejectedExecutionException(name + " pool rejected a task.");
+        });
+    pool.allowCoreThreadTimeOut(true);
+    registerGauges(metric, pool);
+    return pool;
+  }
+
+  private ScheduledExecutorService createScheduler(String name, int size, String scope) {
+    if (size <= 0) {
+      return null;
+    }
+    ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(size,
+        createThreadFactory(name, scope));
+    pool.setRemoveOnCancelPolicy(true);
+    registerGauges("pool." + name.toLowerCase() + scope, pool);
+    return pool;
+  }
+
+  private void registerGauges(String metric, ThreadPoolExecutor pool) {
+    metrics.registerGauge(metric + ".active", pool::getActiveCount);
+    metrics.registerGauge(metric + ".size", pool::getPoolSize);
+    metrics.registerGauge(metric + ".queued", () -> pool.getQueue().size());
+    metrics.registerGauge(metric + ".completed", pool::getCompletedTaskCount);
+  }
+
+  private ThreadFactory createThreadFactory(String name, String scope) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      // Pool threads belong to this Bot, so the static getters resolve to it.
+      Thread thread = new Thread(core.bind(runnable),
+          "AridCore-" + name + scope.replace(".", "-") + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Creates a virtual-thread-per-task executor. Looked up reflectively, as the project
+   * targets a JVM without virtual threads.
+   *
+   * @return virtual thread executor, or null if the running JVM does not support them
+   */
+  static ExecutorService createVirtualExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException roe) {
+      AridCore.getLog().warning("Virtual threads are not supported by this JVM ("
+          + System.getProperty("java.version") + "). Using platform threads.",
+          OperationStage.PRE_INIT);
+      return null;
+    }
+  }
+
+  /**
+   * Counts the tasks running on an executor that has no pool statistics of its own,
+   * running them with the Bot as the {@link AridCore#current()} instance.
+   */
+  private static final class MeteredExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final AridCore core;
+    private final AtomicInteger active = new AtomicInteger();
+
+    private MeteredExecutorService(ExecutorService delegate, AridCore core) {
+      this.delegate = delegate;
+      this.core = core;
+    }
+
+    private int getActiveCount() {
+      return active.get();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      Runnable bound = core.bind(command);
+      delegate.execute(() -> {
+        active.incrementAndGet();
+        try {
+          bound.run();
+        } finally {
+          active.decrementAndGet();
+        }
+      });
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+}
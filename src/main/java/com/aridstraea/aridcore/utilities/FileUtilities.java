@@ -55,7 +55,7 @@ public class FileUtilities {
       AridCore.getLog()
           .error("Unable to create configuration file.", OperationStage.CONFIGURATION,
               new NoConfigurationFileException("Unusable configuration file."));
-      AridCore.shutdown(ShutdownStatus.NO_CONFIG);
+      AridCore.stopCurrent(ShutdownStatus.NO_CONFIG);
     }
   }
 
@@ -150,10 +150,10 @@ public class FileUtilities {
 
     } catch (FileNotFoundException fnfe) {
       AridCore.getLog().error("File not found.", OperationStage.FILE_UTIL, fnfe);
-      AridCore.shutdown(ShutdownStatus.NO_CONFIG);
+      AridCore.stopCurrent(ShutdownStatus.NO_CONFIG);
     } catch (Exception e) {
       AridCore.getLog().error("File could not be read.", OperationStage.FILE_UTIL, e);
-      AridCore.shutdown(ShutdownStatus.NO_CONFIG);
+      AridCore.stopCurrent(ShutdownStatus.NO_CONFIG);
     }
 
     return array;
@@ -181,10 +181,10 @@ public class FileUtilities {
       return obj;
     } catch (FileNotFoundException fnfe) {
       AridCore.getLog().error("File not found.", OperationStage.FILE_UTIL, fnfe);
-      AridCore.shutdown(ShutdownStatus.NO_CONFIG);
+      AridCore.stopCurrent(ShutdownStatus.NO_CONFIG);
     } catch (Exception e) {
       AridCore.getLog().error("File could not be read.", OperationStage.FILE_UTIL, e);
-      AridCore.shutdown(ShutdownStatus.NO_CONFIG);
+      AridCore.stopCurrent(ShutdownStatus.NO_CONFIG);
     }
 
     return null;
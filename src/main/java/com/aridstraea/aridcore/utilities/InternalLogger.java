@@ -30,12 +30,12 @@ import org.slf4j.LoggerFactory;
 public class InternalLogger {
 
   private static final String title = "AridCore";
-  private static boolean log = true;
+  private boolean log = true;
   public static final String VERSION = "0";
   public static final String BUILD_NUMBER = "0.2S";
   public static final String JVM = System.getProperty("java.version");
 
-  private static Logger internalLogger;
+  private final Logger internalLogger;
 
   public InternalLogger(String name) {
     internalLogger = LoggerFactory.getLogger(name);
@@ -81,7 +81,7 @@ public class InternalLogger {
     log = logging;
   }
 
-  public static boolean isLogging() {
+  public boolean isLogging() {
     return log;
   }
 
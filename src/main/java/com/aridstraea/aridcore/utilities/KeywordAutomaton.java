@@ -0,0 +1,280 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.utilities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * KeywordAutomaton class of the AridCore project.
+ * Finds any number of keywords in a text in a single pass (Aho-Corasick).
+ *
+ * <p>The automaton is immutable once built and can be shared between threads. Its
+ * transitions are stored in flat sorted arrays, so scanning allocates nothing. Keywords are
+ * matched ignoring case unless the builder says otherwise; a keyword added twice keeps its
+ * first value.
+ *
+ * @param <T> type of the values keywords map to
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public final class KeywordAutomaton<T> {
+
+  private static final int NONE = -1;
+
+  private final boolean ignoreCase;
+  private final int[] edgeStart;
+  private final char[] edgeLabels;
+  private final int[] edgeTargets;
+  private final int[] fail;
+  private final int[] match;
+  private final int[] dictionary;
+  private final int[] best;
+  private final int[] lengths;
+  private final Object[] values;
+
+  /**
+   * Receives the matches of a scan.
+   *
+   * @param <T> type of the values keywords map to
+   */
+  @FunctionalInterface
+  public interface MatchHandler<T> {
+
+    /**
+     * Called for each keyword found, in order of the position they end at.
+     *
+     * @param start index of the keyword's first character
+     * @param end   index after the keyword's last character
+     * @param value value of the keyword
+     * @return true to continue scanning, false to stop
+     */
+    boolean onMatch(int start, int end, T value);
+  }
+
+  private KeywordAutomaton(Builder<T> builder) {
+    this.ignoreCase = builder.ignoreCase;
+    List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+    List<Integer> own = new ArrayList<>();
+    trie.add(new TreeMap<>());
+    own.add(NONE);
+    lengths = new int[builder.keywords.size()];
+    values = new Object[builder.keywords.size()];
+
+    // 1. Build the trie.
+    int index = 0;
+    for (Map.Entry<String, T> keyword : builder.keywords.entrySet()) {
+      String word = keyword.getKey();
+      int state = 0;
+      for (int i = 0; i < word.length(); i++) {
+        char c = fold(word.charAt(i));
+        Integer next = trie.get(state).get(c);
+        if (next == null) {
+          next = trie.size();
+          trie.add(new TreeMap<>());
+          own.add(NONE);
+          trie.get(state).put(c, next);
+        }
+        state = next;
+      }
+      if (own.get(state) == NONE) {
+        own.set(state, index);
+      }
+      lengths[index] = word.length();
+      values[index] = keyword.getValue();
+      index++;
+    }
+
+    // 2. Flatten the transitions.
+    int states = trie.size();
+    edgeStart = new int[states + 1];
+    edgeLabels = new char[states - 1];
+    edgeTargets = new int[states - 1];
+    int edge = 0;
+    for (int state = 0; state < states; state++) {
+      edgeStart[state] = edge;
+      for (Map.Entry<Character, Integer> entry : trie.get(state).entrySet()) {
+        edgeLabels[edge] = entry.getKey();
+        edgeTargets[edge] = entry.getValue();
+        edge++;
+      }
+    }
+    edgeStart[states] = edge;
+
+    // 3. Link failures breadth-first, so shorter suffixes are always linked first.
+    fail = new int[states];
+    match = new int[states];
+    dictionary = new int[states];
+    best = new int[states];
+    match[0] = NONE;
+    dictionary[0] = NONE;
+    best[0] = Integer.MAX_VALUE;
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+      queue.add(edgeTargets[e]);
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      match[state] = own.get(state);
+      int suffix = fail[state];
+      dictionary[state] = match[suffix] != NONE ? suffix : dictionary[suffix];
+      best[state] = Math.min(match[state] == NONE ? Integer.MAX_VALUE : match[state], best[suffix]);
+      for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+        int child = edgeTargets[e];
+        fail[child] = next(fail[state], edgeLabels[e]);
+        queue.add(child);
+      }
+    }
+  }
+
+  /**
+   * Creates a builder for a KeywordAutomaton.
+   *
+   * @param <T> type of the values keywords map to
+   * @return new builder
+   */
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Finds the value of the first added keyword occurring in the text.
+   *
+   * @param text text to scan
+   * @return value of the keyword, or null if none occurs
+   */
+  @SuppressWarnings("unchecked")
+  public T findFirst(CharSequence text) {
+    int found = Integer.MAX_VALUE;
+    int state = 0;
+    for (int i = 0; i < text.length() && found != 0; i++) {
+      state = next(state, fold(text.charAt(i)));
+      found = Math.min(found, best[state]);
+    }
+    return found == Integer.MAX_VALUE ? null : (T) values[found];
+  }
+
+  /**
+   * Reports every keyword occurring in the text, overlapping ones included.
+   *
+   * @param text    text to scan
+   * @param handler receiver of the matches
+   */
+  @SuppressWarnings("unchecked")
+  public void scan(CharSequence text, MatchHandler<? super T> handler) {
+    int state = 0;
+    for (int i = 0; i < text.length(); i++) {
+      state = next(state, fold(text.charAt(i)));
+      for (int s = match[state] != NONE ? state : dictionary[state]; s != NONE;
+          s = dictionary[s]) {
+        int keyword = match[s];
+        if (!handler.onMatch(i + 1 - lengths[keyword], i + 1, (T) values[keyword])) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Determines if there are no keywords.
+   *
+   * @return true if nothing can match
+   */
+  public boolean isEmpty() {
+    return values.length == 0;
+  }
+
+  /**
+   * Follows failures from a state until one has a transition for the character.
+   *
+   * @param state state to start from
+   * @param c     character to follow
+   * @return next state
+   */
+  private int next(int state, char c) {
+    while (true) {
+      int found = Arrays.binarySearch(edgeLabels, edgeStart[state], edgeStart[state + 1], c);
+      if (found >= 0) {
+        return edgeTargets[found];
+      }
+      if (state == 0) {
+        return 0;
+      }
+      state = fail[state];
+    }
+  }
+
+  private char fold(char c) {
+    return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+  }
+
+  /**
+   * Builder for a {@link KeywordAutomaton}.
+   *
+   * @param <T> type of the values keywords map to
+   */
+  public static final class Builder<T> {
+
+    private final Map<String, T> keywords = new LinkedHashMap<>();
+    private boolean ignoreCase = true;
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a keyword. Earlier keywords take precedence in {@link #findFirst}; a keyword added
+     * again keeps its first value.
+     *
+     * @param keyword keyword to find
+     * @param value   value reported for the keyword
+     * @return Builder instance
+     */
+    public Builder<T> add(String keyword, T value) {
+      if (keyword == null || keyword.isEmpty()) {
+        throw new IllegalArgumentException("Keywords must not be empty.");
+      }
+      keywords.putIfAbsent(keyword, value);
+      return this;
+    }
+
+    /**
+     * Sets whether case is ignored while matching.
+     *
+     * @param ignoreCase true to ignore case, which is the default
+     * @return Builder instance
+     */
+    public Builder<T> ignoreCase(boolean ignoreCase) {
+      this.ignoreCase = ignoreCase;
+      return this;
+    }
+
+    /**
+     * Builds the automaton.
+     *
+     * @return new KeywordAutomaton
+     */
+    public KeywordAutomaton<T> build() {
+      return new KeywordAutomaton<>(this);
+    }
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.aridstraea.aridcore.utilities;
+
+import com.aridstraea.aridcore.core.AridCore;
+import com.aridstraea.aridcore.core.metrics.CoreMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+
+/**
+ * MessageCoalescer class of the AridCore project.
+ * Merges messages sent to the same channel within a short window into a single message.
+ *
+ * <p>The first message to a channel opens a batch, which is sent once the window passes.
+ * Text joins the batch's content, separated by new lines, and embeds are attached to it, as
+ * long as the result stays within Discord's limits; otherwise the batch is sent early and a
+ * new one is opened. Every message of a batch completes with the same {@link Message}.
+ * Merged messages are counted as <code>messages.coalesced</code>.
+ *
+ * <p>With a window of 0, messages are sent right away. Use it through
+ * {@link MessageUtilities#sendCoalesced(MessageChannel, String)}.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public class MessageCoalescer {
+
+  private final AridCore core;
+  private final CoreMetrics metrics;
+  private final Map<Long, Batch> batches = new ConcurrentHashMap<>();
+  private ScheduledThreadPoolExecutor timer;
+  private volatile long window;
+
+  /**
+   * Messages waiting to be sent to a channel.
+   */
+  private static final class Batch {
+
+    private final MessageChannel channel;
+    private final StringBuilder content = new StringBuilder();
+    private final List<MessageEmbed> embeds = new ArrayList<>();
+    private final CompletableFuture<Message> sent = new CompletableFuture<>();
+    private int embedLength;
+    private int messages;
+
+    private Batch(MessageChannel channel) {
+      this.channel = channel;
+    }
+
+    private boolean fits(String text, MessageEmbed embed) {
+      if (text != null) {
+        int separator = content.length() == 0 ? 0 : 1;
+        return content.length() + separator + text.length() <= Message.MAX_CONTENT_LENGTH;
+      }
+      return embeds.size() < Message.MAX_EMBED_COUNT
+          && embedLength + embed.getLength() <= MessageEmbed.EMBED_MAX_LENGTH_BOT;
+    }
+
+    private void add(String text, MessageEmbed embed) {
+      if (text != null) {
+        if (content.length() > 0) {
+          content.append('\n');
+        }
+        content.append(text);
+      } else {
+        embeds.add(embed);
+        embedLength += embed.getLength();
+      }
+      messages++;
+    }
+  }
+
+  /**
+   * Creates a new MessageCoalescer, sending right away until a window is set.
+   *
+   * @param core    Bot the messages are sent by
+   * @param metrics metrics to count merged messages in
+   */
+  public MessageCoalescer(AridCore core, CoreMetrics metrics) {
+    this.core = core;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sets how long messages wait for others to the same channel.
+   *
+   * @param window window in milliseconds, 0 to send right away
+   * @return MessageCoalescer instance
+   */
+  public MessageCoalescer setWindow(long window) {
+    this.window = Math.max(0, window);
+    return this;
+  }
+
+  /**
+   * Sends text to a channel, merged with other messages of the window.
+   *
+   * @param channel channel to send to
+   * @param content text to send
+   * @return future completing with the message the text was sent in
+   * @throws IllegalArgumentException if the text is blank
+   */
+  public CompletableFuture<Message> send(MessageChannel channel, String content) {
+    if (content == null || content.isBlank()) {
+      throw new IllegalArgumentException("Cannot send a blank message.");
+    }
+    return enqueue(channel, content, null);
+  }
+
+  /**
+   * Sends an embed to a channel, merged with other messages of the window.
+   *
+   * @param channel channel to send to
+   * @param embed   embed to send
+   * @return future completing with the message the embed was sent in
+   */
+  public CompletableFuture<Message> send(MessageChannel channel, MessageEmbed embed) {
+    if (embed == null) {
+      throw new IllegalArgumentException("Cannot send a null embed.");
+    }
+    return enqueue(channel, null, embed);
+  }
+
+  /**
+   * Sends every open batch and stops the timer.
+   */
+  public void shutdown() {
+    for (Long channelId : batches.keySet()) {
+      flush(channelId, null);
+    }
+    synchronized (this) {
+      if (timer != null) {
+        timer.shutdownNow();
+        timer = null;
+      }
+    }
+  }
+
+  private CompletableFuture<Message> enqueue(MessageChannel channel, String text,
+      MessageEmbed embed) {
+    long delay = window;
+    Batch single = new Batch(channel);
+    if (delay == 0 || !single.fits(text, embed)) {
+      // Nothing to merge with, or too large to share a message.
+      single.add(text, embed);
+      send(single);
+      return single.sent;
+    }
+
+    long channelId = channel.getIdLong();
+    Batch[] full = new Batch[1];
+    Batch[] opened = new Batch[1];
+    Batch batch = batches.compute(channelId, (id, current) -> {
+      if (current != null && current.fits(text, embed)) {
+        current.add(text, embed);
+        return current;
+      }
+      full[0] = current;
+      opened[0] = new Batch(channel);
+      opened[0].add(text, embed);
+      return opened[0];
+    });
+    if (full[0] != null) {
+      send(full[0]);
+    }
+    if (opened[0] != null) {
+      getTimer().schedule(() -> flush(channelId, opened[0]), delay, TimeUnit.MILLISECONDS);
+    }
+    return batch.sent;
+  }
+
+  /**
+   * Sends the batch of a channel, if it is still open.
+   *
+   * @param channelId ID of the channel
+   * @param expected  batch to send, or null for whichever is open
+   */
+  private void flush(long channelId, Batch expected) {
+    Batch[] removed = new Batch[1];
+    batches.computeIfPresent(channelId, (id, current) -> {
+      if (expected != null && current != expected) {
+        return current;
+      }
+      removed[0] = current;
+      return null;
+    });
+    if (removed[0] != null) {
+      send(removed[0]);
+    }
+  }
+
+  private void send(Batch batch) {
+    if (batch.messages > 1) {
+      metrics.add("messages.coalesced", batch.messages - 1);
+    }
+    MessageCreateBuilder message = new MessageCreateBuilder();
+    if (batch.content.length() > 0) {
+      message.setContent(batch.content.toString());
+    }
+    if (!batch.embeds.isEmpty()) {
+      message.setEmbeds(batch.embeds);
+    }
+    try {
+      batch.channel.sendMessage(message.build())
+          .queue(batch.sent::complete, batch.sent::completeExceptionally);
+    } catch (RuntimeException re) {
+      // E.g. missing permissions; complete the senders instead of failing on the timer.
+      batch.sent.completeExceptionally(re);
+    }
+  }
+
+  private synchronized ScheduledThreadPoolExecutor getTimer() {
+    if (timer == null) {
+      timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(core.bind(runnable), "AridCore-MessageCoalescer");
+        thread.setDaemon(true);
+        return thread;
+      });
+      timer.setRemoveOnCancelPolicy(true);
+    }
+    return timer;
+  }
+}
@@ -21,10 +21,15 @@ import java.text.SimpleDateFormat;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.ChannelType;
 import net.dv8tion.jda.api.entities.channel.concrete.PrivateChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
 
 /**
@@ -74,14 +79,59 @@ public class MessageUtilities {
     // Bypass sending message if it is already in a private message.
     if (!mre.isFromType(ChannelType.PRIVATE)) {
       // Send help message
-      mre.getChannel().asTextChannel().sendMessage(new MessageCreateBuilder()
-          .addContent("Hey, ")
-          .addContent(tag)
-          .addContent(": Help information was sent as a private message.")
-          .build()).queue();
+      sendCoalesced(mre.getChannel(),
+          "Hey, " + tag + ": Help information was sent as a private message.");
     }
   }
 
+  /**
+   * Sends text to a channel, merged with other messages sent to it within the configured
+   * window (<code>message_coalesce_window</code>).
+   *
+   * @param channel channel to send to
+   * @param content text to send
+   * @return future completing with the message the text was sent in
+   * @throws IllegalArgumentException if the text is blank
+   */
+  public static CompletableFuture<Message> sendCoalesced(MessageChannel channel,
+      String content) {
+    return AridCore.getMessageCoalescer().send(channel, content);
+  }
+
+  /**
+   * Sends an embed to a channel, merged with other messages sent to it within the configured
+   * window (<code>message_coalesce_window</code>).
+   *
+   * @param channel channel to send to
+   * @param embed   embed to send
+   * @return future completing with the message the embed was sent in
+   */
+  public static CompletableFuture<Message> sendCoalesced(MessageChannel channel,
+      MessageEmbed embed) {
+    return AridCore.getMessageCoalescer().send(channel, embed);
+  }
+
+  /**
+   * Replies to an interaction, or follows up on it if it was already acknowledged,
+   * e.g. deferred because the command took too long.
+   *
+   * @param event     interaction to reply to
+   * @param content   content of the reply
+   * @param ephemeral true to only show the reply to the user, false if not
+   */
+  public static void reply(IReplyCallback event, String content, boolean ephemeral) {
+    if (event.isAcknowledged()) {
+      event.getHook().sendMessage(content).setEphemeral(ephemeral).queue();
+      return;
+    }
+    event.reply(content).setEphemeral(ephemeral).queue(null, failure -> {
+      // Acknowledged in the meantime; the hook waits for that acknowledgement.
+      if (failure instanceof IllegalStateException) {
+        event.getHook().sendMessage(content).setEphemeral(ephemeral).queue();
+      }
+    });
+  }
+
   /**
    * Creates a basic embed with the Core information.
    *
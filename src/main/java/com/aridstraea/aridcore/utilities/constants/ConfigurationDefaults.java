@@ -30,7 +30,43 @@ public enum ConfigurationDefaults {
   PREFIX("prefix", "e!"),
   GAME_STATUS("game_status", "with my friends"),
   SHARDS("shards", "0"),
-  OWNER_ID("owner_id", "place your discord id here");
+  OWNER_ID("owner_id", "place your discord id here"),
+  MEMORY_PROFILE("memory_profile", "balanced"),
+  MEMBER_CACHE_SIZE("member_cache_size", "1000"),
+  MEMBER_CACHE_EXPIRY("member_cache_expiry", "300"),
+  EVENT_POOL_SIZE("event_pool_size", "0"),
+  CALLBACK_POOL_SIZE("callback_pool_size", "0"),
+  RATE_LIMIT_POOL_SIZE("rate_limit_pool_size", "0"),
+  GATEWAY_POOL_SIZE("gateway_pool_size", "0"),
+  SHARED_THREAD_POOLS("shared_thread_pools", "true"),
+  VIRTUAL_THREADS("virtual_threads", "false"),
+  SHUTDOWN_DEADLINE("shutdown_deadline", "10000"),
+  COMMAND_HASH_FILE("command_hash_file", "command_hashes.json"),
+  COMMAND_REGISTRATION_CONCURRENCY("command_registration_concurrency", "4"),
+  COMMAND_REGISTRATION_ATTEMPTS("command_registration_attempts", "5"),
+  MODULE_CONCURRENCY("module_concurrency", "4"),
+  MODULE_QUEUE_SIZE("module_queue_size", "16"),
+  ADMISSION_QUEUE_SIZE("admission_queue_size", "256"),
+  ADMISSION_MAX_DELAY("admission_max_delay", "2000"),
+  INTERACTION_DEFER_BUDGET("interaction_defer_budget", "1500"),
+  COMMAND_TIMEOUT("command_timeout", "0"),
+  EVENT_DEDUP_WINDOW("event_dedup_window", "60000"),
+  EVENT_DEDUP_CAPACITY("event_dedup_capacity", "65536"),
+  FILTER_FILE("filter_file", "filter.txt"),
+  FILTER_ACTIONS("filter_actions", "delete,log"),
+  FILTER_RELOAD_INTERVAL("filter_reload_interval", "10000"),
+  SPAM_WINDOW("spam_window", "10000"),
+  SPAM_CAPACITY("spam_capacity", "131072"),
+  SPAM_USER_LIMIT("spam_user_limit", "8"),
+  SPAM_CHANNEL_LIMIT("spam_channel_limit", "0"),
+  SPAM_DUPLICATE_LIMIT("spam_duplicate_limit", "4"),
+  SPAM_MUTE_DURATION("spam_mute_duration", "0"),
+  SCHEDULER_JOURNAL("scheduler_journal", "scheduler.journal"),
+  MESSAGE_COALESCE_WINDOW("message_coalesce_window", "0"),
+  REST_NORMAL_CONCURRENCY("rest_normal_concurrency", "16"),
+  REST_BACKGROUND_CONCURRENCY("rest_background_concurrency", "2"),
+  REST_BACKGROUND_MAX_WAIT("rest_background_max_wait", "5000"),
+  COMPONENT_STATE_TTL("component_state_ttl", "900000");
 
   private final String key;
   private final String value;
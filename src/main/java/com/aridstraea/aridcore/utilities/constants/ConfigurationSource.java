@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2024 aristraea
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at:
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.aridstraea.aridcore.utilities.constants;
+
+/**
+ * Constants used by the AridCore project.
+ * Describes where a configuration value was resolved from, in order of precedence.
+ *
+ * @author aristraea
+ * @since 0.2.6-S
+ */
+public enum ConfigurationSource {
+
+  ENVIRONMENT("Environment variable", 1),
+  SYSTEM_PROPERTY("System property", 2),
+  FILE("Configuration file", 3),
+  DEFAULT("Default value", 4);
+
+  private final String name;
+  private final int identifier;
+
+  ConfigurationSource(String name, int identifier) {
+    this.name = name;
+    this.identifier = identifier;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getIdentifier() {
+    return identifier;
+  }
+}
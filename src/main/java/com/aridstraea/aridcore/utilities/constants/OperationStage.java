@@ -33,7 +33,9 @@ public enum OperationStage {
   FILE_UTIL("File Operations", 4),
   SHUTDOWN("Shut Down", 5),
 
-  CONFIGURATION("Configuration Usage", 6);
+  CONFIGURATION("Configuration Usage", 6),
+
+  EVENT("Event Dispatch", 7);
 
   private final String name;
   private final int identifier;